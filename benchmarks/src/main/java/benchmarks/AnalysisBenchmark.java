@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.AnalysisResult;
+import src.Function;
+import src.FunctionAnalysis;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* benchmarks of a whole analysis (roots, extrema, inflection points and all the intervals), without printing it.
+ * concurrentStages compares the analysis with its stages on the common pool and on the calling thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"2", "3", "5", "10", "20", "50"})
+    public int degree;
+
+    @Param({"false", "true"})
+    public boolean concurrentStages;
+
+    private Function f;
+
+    @Setup
+    public void setup() {
+        f = Polynomials.random(degree);
+    }
+
+    @Benchmark
+    public AnalysisResult analyze() {
+        FunctionAnalysis analysis = new FunctionAnalysis(f);
+        analysis.setConcurrentStages(concurrentStages);
+        return analysis.analyze();
+    }
+}
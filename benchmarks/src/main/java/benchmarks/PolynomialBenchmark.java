@@ -0,0 +1,92 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import src.CompiledPolynomial;
+import src.Function;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* benchmarks of the basic operations of Function, for degrees from 1 to 500.
+ * the time of calcValue and calcValues is per value of x, the other times are per call. see RootsBenchmark for
+ * findRoots. the compiled versions are unrolled up to degree 16 and fall back to the loops above it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolynomialBenchmark {
+    private static final int POINTS = 1024;
+
+    @Param({"1", "2", "3", "5", "10", "20", "50", "100", "200", "500"})
+    public int degree;
+
+    private Function f;
+    private CompiledPolynomial compiled;
+    private double[] coeffs;
+    private double[] xs;
+    private double[] ys;
+
+    @Setup
+    public void setup() {
+        f = Polynomials.random(degree);
+        compiled = f.compile();
+        coeffs = new double[degree + 1];
+        for (int i = 0; i <= degree; i++)
+            coeffs[i] = f.getCoefficient(i);
+        xs = Polynomials.points(POINTS);
+        ys = new double[POINTS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void calcValue(Blackhole bh) {
+        for (double x : xs)
+            bh.consume(f.calcValue(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] calcValues() {
+        f.calcValues(xs, ys);
+        return ys;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void compiledCalcValue(Blackhole bh) {
+        for (double x : xs)
+            bh.consume(compiled.calcValue(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] compiledCalcValues() {
+        compiled.calcValues(xs, ys);
+        return ys;
+    }
+
+    @Benchmark
+    public Function calcDerivative() {
+        return f.calcDerivative();
+    }
+
+    @Benchmark
+    public double[] polDivRec() {
+        return Function.polDivRec(coeffs, -0.5, new double[degree]);
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import src.Function;
+
+import java.util.Random;
+
+
+// the functions used by the benchmarks, always the same for the same degree so the results can be compared
+final class Polynomials {
+    private Polynomials() {
+    }
+
+    // a method to get a function with coefficients between -1 and 1, and a leading coefficient of at least 0.5
+    static Function random(int degree) {
+        Random random = new Random(degree * 31L + 7);
+        double[] coeffs = new double[degree + 1];
+        for (int i = 0; i < degree; i++)
+            coeffs[i] = random.nextDouble() * 2 - 1;
+        coeffs[degree] = 0.5 + random.nextDouble() / 2;
+        return new Function(coeffs);
+    }
+
+    // a method to get n evenly spaced values of x between -1 and 1
+    static double[] points(int n) {
+        double[] xs = new double[n];
+        for (int i = 0; i < n; i++)
+            xs[i] = -1 + 2.0 * i / (n - 1);
+        return xs;
+    }
+}
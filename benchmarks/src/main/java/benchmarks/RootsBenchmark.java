@@ -0,0 +1,74 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import src.AberthEhrlichSolver;
+import src.Function;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* benchmarks of finding all the real roots of a function.
+ * Function.findRoots (one root at a time with Newton-Raphson, then division and recursion) gets too slow to measure
+ * above degree 100, so it is measured up to 100 only. the simultaneous solver (used by the analysis from degree 12,
+ * see FunctionAnalysis) is measured up to 500 in SimultaneousRootsBenchmark below.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RootsBenchmark {
+
+    @Param({"1", "2", "3", "5", "10", "20", "50", "75", "100"})
+    public int degree;
+
+    private Function f;
+
+    @Setup
+    public void setup() {
+        f = Polynomials.random(degree);
+    }
+
+    @Benchmark
+    public double[] findRoots() {
+        return f.findRoots();
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(1)
+    public static class SimultaneousRootsBenchmark {
+
+        @Param({"1", "2", "3", "5", "10", "20", "50", "100", "200", "500"})
+        public int degree;
+
+        private final AberthEhrlichSolver solver = new AberthEhrlichSolver();
+        private Function f;
+
+        @Setup
+        public void setup() {
+            f = Polynomials.random(degree);
+        }
+
+        @Benchmark
+        public double[] findRealRoots() {
+            return solver.findRealRoots(f);
+        }
+    }
+}
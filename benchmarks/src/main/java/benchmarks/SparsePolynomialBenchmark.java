@@ -0,0 +1,66 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import src.SparsePolynomial;
+
+import java.util.concurrent.TimeUnit;
+
+
+/* benchmarks of SparsePolynomial for x^n - 3x + 1, a function with three terms and a degree up to a million.
+ * the time of calcValue is per value of x, the other times are per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SparsePolynomialBenchmark {
+    private static final int POINTS = 1024;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int degree;
+
+    private SparsePolynomial f;
+    private double[] xs;
+
+    @Setup
+    public void setup() {
+        f = new SparsePolynomial(new int[] {degree, 1, 0}, new double[] {1, -3, 1});
+        xs = Polynomials.points(POINTS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void calcValue(Blackhole bh) {
+        for (double x : xs)
+            bh.consume(f.calcValue(x));
+    }
+
+    @Benchmark
+    public SparsePolynomial calcDerivative() {
+        return f.calcDerivative();
+    }
+
+    @Benchmark
+    public double[] findRoots() {
+        return f.findRoots();
+    }
+
+    @Benchmark
+    public String format() {
+        return f.toString();
+    }
+}
@@ -0,0 +1,236 @@
+package src;
+
+
+/* a solver that finds all the roots of a polynomial function at once, using the Aberth-Ehrlich method.
+ * every root zk (complex) is approximated at the same time. in each iteration, every approximation is moved by
+ *
+ *                       N(zk)                                         f(zk)
+ *     wk = ——————————————————————————————————   where   N(zk) = ——————————
+ *           1 - N(zk) · Σ(j != k) 1 / (zk - zj)                       f'(zk)
+ *
+ * which is a Newton step that also pushes zk away from the other approximations, so no two of them converge to the
+ * same root and there is no need to divide the polynomial after every root (deflation). one iteration costs O(n²).
+ * the real roots of the function are the roots with an imaginary part of (almost) 0.
+ */
+public class AberthEhrlichSolver {
+    public static final double DEFAULT_TOLERANCE = 1e-14;
+    public static final int DEFAULT_MAX_ITERATIONS = 500;
+    public static final double DEFAULT_IMAGINARY_TOLERANCE = 1e-7;
+
+    // a root with |Im(z)| / max(1, |z|) above this is never considered real
+    private static final double MAX_IMAGINARY_CLUSTER = 1e-3;
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final int POLISH_STEPS = 3;
+
+    private final double tolerance, imaginaryTolerance;
+    private final int maxIterations;
+
+    // the first constructor of the class, uses the default tolerances and budget
+    public AberthEhrlichSolver() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, DEFAULT_IMAGINARY_TOLERANCE);
+    }
+
+    /* the second constructor of the class. tolerance is the relative size of the last correction of a root,
+     * imaginaryTolerance is the relative size of the imaginary part under which a root is considered real.
+     */
+    public AberthEhrlichSolver(double tolerance, int maxIterations, double imaginaryTolerance) {
+        if (tolerance <= 0 || maxIterations <= 0 || imaginaryTolerance < 0)
+            throw new IllegalArgumentException("tolerance and maxIterations must be positive, imaginaryTolerance non-negative");
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.imaginaryTolerance = imaginaryTolerance;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to find the real roots of the function (unsorted, a multiple root may appear more than once)
+    public double[] findRealRoots(Function f) {
+        double[] coeffs = new double[f.getDegree() + 1];
+        for (int i = 0; i < coeffs.length; i++)
+            coeffs[i] = f.getCoefficient(i);
+        return findRealRoots(coeffs, f.getDegree());
+    }
+
+    // same as above, for the polynomial a0 + a1x + ... + anxⁿ where coeffs[i] is the coefficient of xⁱ
+    public double[] findRealRoots(double[] coeffs, int degree) {
+        double[][] roots = findComplexRoots(coeffs, degree);
+        double[] re = roots[0], im = roots[1];
+        double[] real = new double[re.length];
+        int numOfReal = 0;
+
+        for (int k = 0; k < re.length; k++) {
+            double scale = Math.max(1, Math.hypot(re[k], im[k]));
+            double relativeIm = Math.abs(im[k]) / scale;
+
+            // a multiple root comes out as a small cluster around the real root, so roots with a slightly larger
+            // imaginary part are still accepted when f(Re(z)) is as close to 0 as the rounding errors allow
+            if (relativeIm <= imaginaryTolerance
+                    || (relativeIm <= MAX_IMAGINARY_CLUSTER && isRoundingNoise(coeffs, degree, re[k])))
+                real[numOfReal++] = polish(coeffs, degree, re[k]);
+        }
+
+        return java.util.Arrays.copyOf(real, numOfReal);
+    }
+
+    /* a method to find all the complex roots of the polynomial.
+     * returns {re, im} where the k-th root is re[k] + im[k]·i. a polynomial of degree n has exactly n roots.
+     */
+    public double[][] findComplexRoots(double[] coeffs, int degree) {
+        // ignore leading zeros and divide by the leading coefficient so f(x) = xⁿ + ...
+        while (degree > 0 && coeffs[degree] == 0)
+            degree--;
+        if (degree <= 0)
+            return new double[][] {new double[0], new double[0]};
+
+        double[] monic = new double[degree + 1];
+        for (int i = 0; i <= degree; i++)
+            monic[i] = coeffs[i] / coeffs[degree];
+
+        double[] re = new double[degree], im = new double[degree];
+        initialApproximations(monic, degree, re, im);
+
+        boolean[] converged = new boolean[degree];
+        double[] ratio = new double[2];
+        int numOfConverged = 0;
+
+        for (int iteration = 0; iteration < maxIterations && numOfConverged < degree; iteration++) {
+            for (int k = 0; k < degree; k++) {
+                if (converged[k]) continue;
+
+                // N = f(zk) / f'(zk)
+                newtonRatio(monic, degree, re[k], im[k], ratio);
+                double nRe = ratio[0], nIm = ratio[1];
+
+                // S = Σ(j != k) 1 / (zk - zj)
+                double sRe = 0, sIm = 0;
+                for (int j = 0; j < degree; j++) {
+                    if (j == k) continue;
+                    double dRe = re[k] - re[j], dIm = im[k] - im[j];
+                    double norm = dRe * dRe + dIm * dIm;
+                    if (norm == 0) continue;
+                    sRe += dRe / norm;
+                    sIm -= dIm / norm;
+                }
+
+                // w = N / (1 - N·S)
+                double denRe = 1 - (nRe * sRe - nIm * sIm);
+                double denIm = -(nRe * sIm + nIm * sRe);
+                double denNorm = denRe * denRe + denIm * denIm;
+                double wRe = nRe, wIm = nIm;
+                if (denNorm != 0) {
+                    wRe = (nRe * denRe + nIm * denIm) / denNorm;
+                    wIm = (nIm * denRe - nRe * denIm) / denNorm;
+                }
+
+                re[k] -= wRe;
+                im[k] -= wIm;
+
+                if (Math.hypot(wRe, wIm) <= tolerance * Math.max(1, Math.hypot(re[k], im[k]))) {
+                    converged[k] = true; numOfConverged++;
+                }
+            }
+        }
+
+        return new double[][] {re, im};
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* a method to spread the first approximations on a circle around 0, with a radius similar to the size of the
+     * roots (the largest |a(n-k)|^(1/k) of the monic polynomial). the angle is shifted so no approximation starts
+     * on the real axis, otherwise the complex roots could not be reached from a real starting point.
+     */
+    private static void initialApproximations(double[] monic, int degree, double[] re, double[] im) {
+        double radius = 0;
+        for (int k = 1; k <= degree; k++)
+            radius = Math.max(radius, Math.pow(Math.abs(monic[degree - k]), 1.0 / k));
+        if (radius == 0) radius = 1;
+
+        for (int k = 0; k < degree; k++) {
+            double angle = 2 * Math.PI * k / degree + 0.4;
+            re[k] = radius * Math.cos(angle);
+            im[k] = radius * Math.sin(angle);
+        }
+    }
+
+    /* a method to calculate f(z) / f'(z) for a complex z and store it in result as {re, im}.
+     * for |z| > 1 the powers of z get very large for high degrees, so the ratio is calculated using the reversed
+     * polynomial g(w) = wⁿ·f(1/w) at w = 1/z instead, where f(z) / f'(z) = z / (n - w·g'(w) / g(w)).
+     */
+    private static void newtonRatio(double[] coeffs, int degree, double zRe, double zIm, double[] result) {
+        double norm = zRe * zRe + zIm * zIm;
+        boolean reversed = norm > 1;
+        double xRe = zRe, xIm = zIm;
+        if (reversed) {
+            xRe = zRe / norm; xIm = -zIm / norm;
+        }
+
+        // Horner's rule for the value and the derivative together
+        double pRe = reversed? coeffs[0] : coeffs[degree], pIm = 0, dRe = 0, dIm = 0;
+        for (int i = 1; i <= degree; i++) {
+            double c = reversed? coeffs[i] : coeffs[degree - i];
+            double tRe = dRe * xRe - dIm * xIm + pRe;
+            dIm = dRe * xIm + dIm * xRe + pIm;
+            dRe = tRe;
+            tRe = pRe * xRe - pIm * xIm + c;
+            pIm = pRe * xIm + pIm * xRe;
+            pRe = tRe;
+        }
+
+        double pNorm = pRe * pRe + pIm * pIm;
+        if (pNorm == 0) {           // z is exactly a root
+            result[0] = 0; result[1] = 0;
+            return;
+        }
+
+        if (!reversed) {
+            divide(pRe, pIm, dRe, dIm, result);
+            return;
+        }
+
+        // q = w·g'(w) / g(w), then N = z / (n - q)
+        divide(dRe, dIm, pRe, pIm, result);
+        double qRe = xRe * result[0] - xIm * result[1];
+        double qIm = xRe * result[1] + xIm * result[0];
+        divide(zRe, zIm, degree - qRe, -qIm, result);
+    }
+
+    // a method to divide two complex numbers, (aRe + aIm·i) / (bRe + bIm·i), and store the result as {re, im}
+    private static void divide(double aRe, double aIm, double bRe, double bIm, double[] result) {
+        double norm = bRe * bRe + bIm * bIm;
+        if (norm == 0) {
+            result[0] = aRe; result[1] = aIm;   // a flat point, take a plain step instead of dividing by 0
+            return;
+        }
+        result[0] = (aRe * bRe + aIm * bIm) / norm;
+        result[1] = (aIm * bRe - aRe * bIm) / norm;
+    }
+
+    // a method to check if f(x) is so small that it can't be told apart from the rounding errors of calculating it
+    private static boolean isRoundingNoise(double[] coeffs, int degree, double x) {
+        double value = coeffs[degree], error = Math.abs(coeffs[degree]), absX = Math.abs(x);
+        for (int i = degree - 1; i >= 0; i--) {
+            value = value * x + coeffs[i];
+            error = error * absX + Math.abs(coeffs[i]);
+        }
+        return Math.abs(value) <= 4 * degree * EPSILON * error;
+    }
+
+    // a method to improve a real root with a few Newton-Raphson steps, keeping the original if a step goes wrong
+    private static double polish(double[] coeffs, int degree, double x) {
+        double original = x;
+        for (int step = 0; step < POLISH_STEPS; step++) {
+            double value = coeffs[degree], derivative = 0;
+            for (int i = degree - 1; i >= 0; i--) {
+                derivative = derivative * x + value;
+                value = value * x + coeffs[i];
+            }
+            if (value == 0 || derivative == 0) break;
+            x -= value / derivative;
+        }
+        return (Double.isFinite(x) && Math.abs(x - original) <= 1e-6 * Math.max(1, Math.abs(original)))? (x):(original);
+    }
+
+}
@@ -0,0 +1,259 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/* a class to keep the results of analyzing functions, so analyzing the same function again only costs a lookup.
+ * the functions are looked up by their coefficients (see Key), and the results are kept in the order they were last
+ * used: when there are too many of them, or they take too much memory, the ones that were not used for the longest
+ * time are removed first (least recently used). the memory of a result is estimated from the sizes of its arrays.
+ *
+ * a cached result is the same object every time, so its roots and points don't change between calls, even though
+ * the solvers start from random points. the results are shared, so they must not be changed (see AnalysisResult).
+ *
+ * a FunctionAnalysis only uses a cache when one is chosen (see FunctionAnalysis.setCache), and the roots of a
+ * function are only taken from a cache when asked for (see findRoots).
+ *
+ * the cache can be used by many threads at once. a result is calculated outside of the lock, so two threads that
+ * ask for the same new function at the same time may both analyze it, and the first result is kept.
+ */
+public class AnalysisCache {
+    // the estimated memory of a result apart from its arrays, and of one entry of the cache, in bytes
+    private static final long RESULT_OVERHEAD = 400;
+    private static final long ARRAY_OVERHEAD = 16;
+
+    // the size of the cache shared by the analyses of the program (see getShared)
+    private static final int SHARED_MAX_ENTRIES = 4096;
+    private static final long SHARED_MAX_WEIGHT = 32L << 20;
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    // the results from the least recently used, and their estimated memory
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits, misses, evictions;
+
+    /* the constructor of the class, gets the largest number of results to keep and the largest estimated memory
+     * for all of them together, in bytes
+     */
+    public AnalysisCache(int maxEntries, long maxWeight) {
+        if (maxEntries <= 0 || maxWeight <= 0)
+            throw new IllegalArgumentException("the size of the cache must be positive");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to get the cache shared by the whole program, it is made the first time it is needed
+    public static AnalysisCache getShared() {
+        return Shared.CACHE;
+    }
+
+    private static class Shared {
+        static final AnalysisCache CACHE = new AnalysisCache(SHARED_MAX_ENTRIES, SHARED_MAX_WEIGHT);
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // a method to get the analysis of the function, from the cache or by analyzing it (see FunctionAnalysis.analyze)
+    public AnalysisResult analyze(Function f) {
+        return analyze(f, null);
+    }
+
+    /* same as above, a function that is not in the cache is analyzed with the choices of settings (see
+     * FunctionAnalysis.setSimultaneousRoots and setConcurrentStages), or with the default ones when it is null.
+     * the kept result has its own copy of the coefficients, as the array of f may be changed later.
+     */
+    AnalysisResult analyze(Function f, FunctionAnalysis settings) {
+        Key key = new Key(f);
+        AnalysisResult result = get(key);
+        if (result != null)
+            return result;
+
+        FunctionAnalysis analysis = new FunctionAnalysis(key.toFunction());
+        analysis.setCache(null);
+        if (settings != null) {
+            analysis.setSimultaneousRoots(settings.isSimultaneousRoots());
+            analysis.setConcurrentStages(settings.isConcurrentStages());
+        }
+        return put(key, analysis.analyze());
+    }
+
+    // a method to get the roots of the function, from its analysis (see analyze)
+    public double[] findRoots(Function f) {
+        return analyze(f).getRoots();
+    }
+
+    // a method to get the result of the function if it is in the cache, or null (it is not analyzed)
+    public AnalysisResult getIfPresent(Function f) {
+        return get(new Key(f));
+    }
+
+    private synchronized AnalysisResult get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.result;
+    }
+
+    // a method to add a result, returns the result kept in the cache (the one already there, if there is one)
+    private synchronized AnalysisResult put(Key key, AnalysisResult result) {
+        Entry previous = entries.get(key);
+        if (previous != null)
+            return previous.result;
+
+        Entry entry = new Entry(result, weigh(key, result));
+        entries.put(key, entry);
+        weight += entry.weight;
+
+        // remove the least recently used results until the cache is small enough (but keep the new one)
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && entries.size() > 1) {
+            Entry removed = eldest.next().getValue();
+            eldest.remove();
+            weight -= removed.weight;
+            evictions++;
+        }
+        return result;
+    }
+
+    // a method to remove all the results, the statistics are kept
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    // a method to estimate the memory of a result in bytes, from the sizes of its arrays and of the key
+    private static long weigh(Key key, AnalysisResult result) {
+        long values = key.coefficients.length
+                + 3L * (result.getFunction().getDegree() + 1)      // the function and its two derivatives
+                + result.getRoots().length + result.getMinPoints().length + result.getMaxPoints().length
+                + result.getExtremaPoints().length + result.getInflectionPoints().length;
+        long signs = result.getSigns().length + result.getDerivativeSigns().length
+                + result.getSecondDerivativeSigns().length;
+        return RESULT_OVERHEAD + 12 * ARRAY_OVERHEAD + 8 * values + 4 * signs;
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // a method to get the statistics of the cache at this moment
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size(), weight);
+    }
+
+    // the statistics of the cache at one moment
+    public static class Stats {
+        private final long hits, misses, evictions;
+        private final int size;
+        private final long weight;
+
+        public Stats(long hits, long misses, long evictions, int size, long weight) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.weight = weight;
+        }
+
+        // the number of lookups that found a result
+        public long getHits() {
+            return hits;
+        }
+
+        // the number of lookups that had to analyze the function
+        public long getMisses() {
+            return misses;
+        }
+
+        // the number of results removed to make room for others
+        public long getEvictions() {
+            return evictions;
+        }
+
+        // the part of the lookups that found a result, between 0 and 1
+        public double getHitRate() {
+            return (hits + misses == 0)? (0):((double) hits / (hits + misses));
+        }
+
+        // the number of results in the cache
+        public int getSize() {
+            return size;
+        }
+
+        // the estimated memory of the results in the cache, in bytes
+        public long getWeight() {
+            return weight;
+        }
+
+        public String toString() {
+            return "hits " + hits + ", misses " + misses + ", evictions " + evictions + ", size " + size
+                    + ", weight " + weight;
+        }
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    private static class Entry {
+        final AnalysisResult result;
+        final long weight;
+
+        Entry(AnalysisResult result, long weight) {
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+    /* the key of a function in the cache: its coefficients, normalized so that equal functions have equal keys.
+     * the zero coefficients above the degree are removed (0x^3 + x - 1 is x - 1) and -0.0 is changed to 0.0.
+     * two keys are equal when their coefficients are exactly the same numbers. the hash is calculated once, as
+     * every lookup needs it.
+     */
+    public static final class Key {
+        private final double[] coefficients;
+        private final int hash;
+
+        public Key(Function f) {
+            int degree = f.getDegree();
+            while (degree > 0 && f.getCoefficient(degree) == 0)
+                degree--;
+
+            coefficients = new double[degree + 1];
+            int h = 1;
+            for (int i = 0; i <= degree; i++) {
+                double c = f.getCoefficient(i);
+                coefficients[i] = (c == 0)? (0.0):(c);      // -0.0 == 0 as well
+                long bits = Double.doubleToLongBits(coefficients[i]);
+                h = 31 * h + (int) (bits ^ (bits >>> 32));
+            }
+            this.hash = h;
+        }
+
+        // a method to create the function of the key, with a copy of its coefficients
+        public Function toFunction() {
+            return new Function(Arrays.copyOf(coefficients, coefficients.length));
+        }
+
+        public boolean equals(Object other) {
+            if (this == other)
+                return true;
+            if (!(other instanceof Key))
+                return false;
+            Key key = (Key) other;
+            return hash == key.hash && Arrays.equals(coefficients, key.coefficients);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
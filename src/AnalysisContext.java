@@ -0,0 +1,92 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+
+/* a class to share the work of one analysis of a function between its stages.
+ * the analysis needs f(x), f'(x) and f''(x) and the roots of each of them, but finding the roots of a function with
+ * an even degree also needs the roots of its derivative. without sharing, the roots of f'(x) would be found once
+ * for f(x) and again for the extrema points, and the same for f''(x). the context calculates every derivative and
+ * every set of roots once, the first time it is asked for, and returns the same result after that.
+ * the returned arrays are shared, so they must not be changed.
+ *
+ * the roots can be calculated on an executor: every set of roots is a stage that starts as soon as the roots it
+ * depends on (if any) are known, so independent stages run at the same time.
+ */
+public class AnalysisContext {
+    private static final AberthEhrlichSolver SIMULTANEOUS_SOLVER = new AberthEhrlichSolver();
+
+    private final RootSolver solver;
+    private final boolean simultaneousRoots;
+    private final Executor executor;
+
+    // derivatives.get(k) is the k-th derivative of the function, roots.get(k) its roots (null until requested)
+    private final List<Function> derivatives = new ArrayList<Function>();
+    private final List<CompletableFuture<double[]>> roots = new ArrayList<CompletableFuture<double[]>>();
+
+    // the first constructor of the class, the roots are found with the default Newton-Raphson solver
+    public AnalysisContext(Function func, boolean simultaneousRoots) {
+        this(func, new NewtonRaphsonSolver(), simultaneousRoots, Runnable::run);
+    }
+
+    /* the second constructor of the class. when simultaneousRoots is true the roots are found with the
+     * Aberth-Ehrlich solver, otherwise one at a time with the given solver and polynomial division.
+     * the roots are calculated on the given executor (Runnable::run calculates them on the calling thread).
+     */
+    public AnalysisContext(Function func, RootSolver solver, boolean simultaneousRoots, Executor executor) {
+        this.solver = solver;
+        this.simultaneousRoots = simultaneousRoots;
+        this.executor = executor;
+        derivatives.add(func);
+        roots.add(null);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to get the analyzed function, f(x)
+    public Function getFunction() {
+        return derivatives.get(0);
+    }
+
+    // a method to get the derivative of the given order (0 is the function itself, 1 is f'(x), 2 is f''(x), ...)
+    public synchronized Function getDerivative(int order) {
+        while (derivatives.size() <= order) {
+            derivatives.add(derivatives.get(derivatives.size() - 1).calcDerivative());
+            roots.add(null);
+        }
+        return derivatives.get(order);
+    }
+
+    // a method to get the roots of the derivative of the given order, sorted and without repetitions
+    public double[] getRoots(int order) {
+        return getRootsAsync(order).join();
+    }
+
+    // same as above, without waiting for the roots to be calculated
+    public synchronized CompletableFuture<double[]> getRootsAsync(int order) {
+        Function f = getDerivative(order);
+        if (roots.get(order) != null)
+            return roots.get(order);
+
+        // every set of roots is recorded as a stage of the analysis (see AnalysisEvents)
+        CompletableFuture<double[]> result;
+        if (simultaneousRoots)
+            result = CompletableFuture.supplyAsync(() -> AnalysisEvents.stage("roots", f, order,
+                    () -> SIMULTANEOUS_SOLVER.findRealRoots(f)), executor);
+        else if (f.getDegree() > 0 && f.getDegree() % 2 == 0)  // reuse the roots of the next derivative
+            result = getRootsAsync(order + 1).thenApplyAsync(derRoots -> AnalysisEvents.stage("roots", f, order,
+                    () -> f.findRoots(solver, derRoots)), executor);
+        else
+            result = CompletableFuture.supplyAsync(() -> AnalysisEvents.stage("roots", f, order,
+                    () -> f.findRoots(solver)), executor);
+
+        result = result.thenApply(Function::modifyArray);
+        roots.set(order, result);
+        return result;
+    }
+
+}
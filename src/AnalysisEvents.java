@@ -0,0 +1,158 @@
+package src;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.function.Supplier;
+
+
+/* the Java Flight Recorder events of the analysis, for profiling with the standard JFR tools, for example:
+ *     java -XX:StartFlightRecording=filename=analysis.jfr ... src.Main
+ *     jfr print --events functionanalysis.FindRoots analysis.jfr
+ * an event that is not enabled in the recording (or when there is no recording) costs a check of a flag, so the
+ * events stay in the code. the fields are only filled in when the event is going to be recorded, and the functions
+ * are recorded as text so a slow event can be matched with the polynomial that caused it.
+ */
+public final class AnalysisEvents {
+    private static final String CATEGORY = "Function Analysis";
+
+    private AnalysisEvents() {
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* one event for every call of Function.findRoots, and one inside it for every derivative whose roots are needed
+     * to find a root of an even degree (see Function.derivativeRoots). the quotients of the deflation are not
+     * separate events, every division shows up as a PolynomialDivision event instead.
+     */
+    @Name("functionanalysis.FindRoots")
+    @Label("Find Roots")
+    @Description("Finding all the real roots of a function, or of one of the derivatives needed on the way (see Function.findRoots)")
+    @Category({CATEGORY, "Roots"})
+    @StackTrace(false)
+    public static class FindRoots extends Event {
+        @Label("Function")
+        String function;
+
+        @Label("Degree")
+        int degree;
+
+        @Label("Roots Found")
+        int rootsFound;
+
+        // a method to record the event, after the roots were found
+        void commit(Function f, double[] roots) {
+            commit(f, f.getDegree(), roots);
+        }
+
+        // same as above, for any kind of function (only turned into text if the event is recorded)
+        void commit(Object f, int degree, double[] roots) {
+            end();
+            if (shouldCommit()) {
+                function = f.toString();
+                this.degree = degree;
+                rootsFound = roots.length;
+                commit();
+            }
+        }
+    }
+
+    @Name("functionanalysis.NewtonRaphson")
+    @Label("Newton-Raphson")
+    @Description("Approximating one root with the Newton-Raphson technique")
+    @Category({CATEGORY, "Roots"})
+    @StackTrace(false)
+    public static class NewtonRaphson extends Event {
+        @Label("Degree")
+        int degree;
+
+        @Label("Iterations")
+        int iterations;
+
+        @Label("Restarts")
+        int restarts;
+
+        @Label("Converged")
+        boolean converged;
+
+        @Label("Root")
+        double root;
+
+        void commit(int degree, NewtonRaphsonSolver.Result result) {
+            end();
+            if (shouldCommit()) {
+                this.degree = degree;
+                iterations = result.getIterations();
+                restarts = result.getRestarts();
+                converged = result.isConverged();
+                root = result.getRoot();
+                commit();
+            }
+        }
+    }
+
+    @Name("functionanalysis.PolynomialDivision")
+    @Label("Polynomial Division")
+    @Description("Dividing a function by (x - alpha)")
+    @Category({CATEGORY, "Roots"})
+    @StackTrace(false)
+    public static class PolynomialDivision extends Event {
+        @Label("Degree")
+        int degree;
+
+        @Label("Alpha")
+        double alpha;
+
+        void commit(int degree, double alpha) {
+            end();
+            if (shouldCommit()) {
+                this.degree = degree;
+                this.alpha = alpha;
+                commit();
+            }
+        }
+    }
+
+    @Name("functionanalysis.AnalysisStage")
+    @Label("Analysis Stage")
+    @Description("One stage of the analysis of a function, see FunctionAnalysis.analyze and run")
+    @Category(CATEGORY)
+    public static class AnalysisStage extends Event {
+        @Label("Stage")
+        String stage;
+
+        @Label("Function")
+        String function;
+
+        @Label("Degree")
+        int degree;
+
+        @Label("Derivative Order")
+        @Description("The order of the derivative the stage works on, 0 for the function itself")
+        int order;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to run one stage of the analysis of a function (or of its derivative of the given order) as an event
+    static <T> T stage(String stage, Function f, int order, Supplier<T> work) {
+        AnalysisStage event = new AnalysisStage();
+        event.begin();
+        T result = work.get();
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.function = f.toString();
+            event.degree = f.getDegree();
+            event.order = order;
+            event.commit();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,148 @@
+package src;
+
+
+/* the result of the analysis of a polynomial function, everything FunctionAnalysis prints in its report.
+ * the points are sorted x values and the signs are the signs (1 or -1) of the function between every two points,
+ * as returned by Function.calcIntervals. the arrays are shared, so they must not be changed.
+ */
+public class AnalysisResult {
+    private final Function func, firstDer, secondDer;
+    private final double[] roots, minPoints, maxPoints, extremaPoints, inflectionPoints;
+    private final int[] signs, derivativeSigns, secondDerivativeSigns;
+
+    public AnalysisResult(Function func, Function firstDer, Function secondDer,
+                          double[] roots, double[] minPoints, double[] maxPoints, double[] inflectionPoints) {
+        this.func = func;
+        this.firstDer = firstDer;
+        this.secondDer = secondDer;
+        this.roots = roots;
+        this.minPoints = minPoints;
+        this.maxPoints = maxPoints;
+        this.extremaPoints = Function.modifyArray(concat(minPoints, maxPoints));
+        this.inflectionPoints = inflectionPoints;
+
+        // the sign of f(x) between the roots, of f'(x) between the extrema points and of f''(x) between the
+        // inflection points are the positive/negative, increasing/decreasing and concave/convex intervals of f(x)
+        this.signs = func.calcIntervals(roots);
+        this.derivativeSigns = firstDer.calcIntervals(extremaPoints);
+        this.secondDerivativeSigns = secondDer.calcIntervals(inflectionPoints);
+    }
+
+    private static double[] concat(double[] a, double[] b) {
+        double[] result = java.util.Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    public Function getFunction() {
+        return func;
+    }
+
+    public Function getFirstDerivative() {
+        return firstDer;
+    }
+
+    public Function getSecondDerivative() {
+        return secondDer;
+    }
+
+    // the intersection points with the x axis
+    public double[] getRoots() {
+        return roots;
+    }
+
+    public double[] getMinPoints() {
+        return minPoints;
+    }
+
+    public double[] getMaxPoints() {
+        return maxPoints;
+    }
+
+    // the minimum and maximum points together
+    public double[] getExtremaPoints() {
+        return extremaPoints;
+    }
+
+    public double[] getInflectionPoints() {
+        return inflectionPoints;
+    }
+
+    // positivity (1) and negativity (-1) of f(x) between the roots
+    public int[] getSigns() {
+        return signs;
+    }
+
+    // increasing (1) and decreasing (-1) intervals of f(x), between the extrema points
+    public int[] getDerivativeSigns() {
+        return derivativeSigns;
+    }
+
+    // concavity (1) and convexity (-1) intervals of f(x), between the inflection points
+    public int[] getSecondDerivativeSigns() {
+        return secondDerivativeSigns;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* a method to write the result as one line of JSON, for example:
+     * {"function":"x^2 - 1","roots":[-1.0,1.0],"minimum":[[0.0,-1.0]],"maximum":[],"inflection":[],
+     *  "signs":[1,-1,1],"derivativeSigns":[-1,1],"secondDerivativeSigns":[1]}
+     * the points are written as [x, f(x)] pairs with full precision (no rounding).
+     */
+    public void appendJson(StringBuilder sb) {
+        sb.append("{\"function\":\"").append(func).append('"');
+        sb.append(",\"roots\":"); appendValues(sb, roots);
+        sb.append(",\"minimum\":"); appendPoints(sb, minPoints);
+        sb.append(",\"maximum\":"); appendPoints(sb, maxPoints);
+        sb.append(",\"inflection\":"); appendPoints(sb, inflectionPoints);
+        sb.append(",\"signs\":"); appendValues(sb, signs);
+        sb.append(",\"derivativeSigns\":"); appendValues(sb, derivativeSigns);
+        sb.append(",\"secondDerivativeSigns\":"); appendValues(sb, secondDerivativeSigns);
+        sb.append('}');
+    }
+
+    private void appendPoints(StringBuilder sb, double[] points) {
+        sb.append('[');
+        for (int i = 0; i < points.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('[');
+            appendNumber(sb, points[i]);
+            sb.append(',');
+            appendNumber(sb, func.calcValue(points[i]));
+            sb.append(']');
+        }
+        sb.append(']');
+    }
+
+    private static void appendValues(StringBuilder sb, double[] values) {
+        sb.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            appendNumber(sb, values[i]);
+        }
+        sb.append(']');
+    }
+
+    private static void appendValues(StringBuilder sb, int[] values) {
+        sb.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(values[i]);
+        }
+        sb.append(']');
+    }
+
+    // JSON has no NaN or infinity, they are written as null
+    private static void appendNumber(StringBuilder sb, double value) {
+        if (Double.isFinite(value))
+            sb.append(value);
+        else
+            sb.append("null");
+    }
+
+}
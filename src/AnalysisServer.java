@@ -0,0 +1,312 @@
+package src;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import src.plotting.Graph;
+import src.plotting.PlotSettings;
+import src.plotting.PngEncoder;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+
+/* a small HTTP server that analyzes functions and draws their graphs, so other programs can use the analysis
+ * without running Main. it uses only the HTTP server of the JDK (com.sun.net.httpserver).
+ *
+ *   GET /analyze?f=6,-41,59,-20        the analysis as JSON (see AnalysisResult.appendJson), also POST with the
+ *                                      function as the body. the function is in the format of Function.parse
+ *   GET /render?f=1,0,-1&width=400&height=300&minX=-2&maxX=2&minY=-1&maxY=1
+ *                                      the graph as a PNG image, everything but f is optional
+ *   GET /stats                         the statistics of the analysis cache as JSON
+ *
+ * every request is handled on its own virtual thread when the JVM has them (Java 21 and later), and on a pool with
+ * a bounded queue otherwise (when the queue is full the server thread handles the request itself, so it stops
+ * accepting connections for a moment). either way the memory stays bounded: the images are limited in size and
+ * only a few of them are drawn at a time, the functions are limited in degree and only a few of them are analyzed
+ * at a time, the bodies are limited in length, and the analyses are kept in a bounded AnalysisCache, so repeated
+ * functions are answered from it.
+ *
+ * a request that is wrong is answered with 400 (or 405, 413) and the reason, and a request that fails in the server
+ * with 500.
+ */
+public class AnalysisServer {
+    public static final int MAX_DEGREE = 1000;
+    public static final int MAX_PIXELS = 4096 * 4096;
+    private static final int MAX_BODY = 64 * 1024;
+    private static final int QUEUE_PER_THREAD = 64;
+    // the connections waiting to be accepted, a burst of new clients beyond this has to try again
+    private static final int BACKLOG = 4096;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AnalysisCache cache;
+
+    // the images being drawn at the same time, each one takes width * height * 4 bytes
+    private final Semaphore renders;
+    // the functions being analyzed at the same time, the others wait so a burst of requests can't use all the memory
+    private final Semaphore analyses;
+
+    /* the constructor of the class, listens on the given address (port 0 chooses a free port, see getPort).
+     * the server does not answer until start is called
+     */
+    public AnalysisServer(InetSocketAddress address, AnalysisCache cache) throws IOException {
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.cache = cache;
+        this.renders = new Semaphore(cores);
+        this.analyses = new Semaphore(cores * 2);
+        this.executor = newExecutor(cores * 8);
+
+        server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/analyze", exchange -> handle(exchange, this::analyze));
+        server.createContext("/render", exchange -> handle(exchange, this::render));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+    }
+
+    /* a method to get an executor with a virtual thread for every task if the JVM has them, or a pool of the given
+     * number of threads otherwise. the virtual threads are created through reflection so this compiles on Java 17
+     */
+    private static ExecutorService newExecutor(int threads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), runnable -> {
+                        Thread thread = new Thread(runnable, "analysis-server");
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // a method to stop the server, waiting up to the given number of seconds for the requests being handled
+    public void stop(int seconds) {
+        server.stop(seconds);
+        executor.shutdown();
+    }
+
+    // the port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // the work of one kind of request, answers it with respond
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> parameters) throws IOException;
+    }
+
+    // a request that can't be answered, its message is sent to the client with the status
+    private static class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /* a method to run the handler of a request, and answer with an error if the request is wrong (the status of
+     * the RequestException) or fails in the server (500, the details are only written to the standard error)
+     */
+    private void handle(HttpExchange exchange, Handler handler) {
+        try (exchange) {
+            try {
+                String method = exchange.getRequestMethod();
+                if (!method.equals("GET") && !method.equals("POST"))
+                    throw new RequestException(405, "only GET and POST are supported");
+                handler.handle(exchange, parameters(exchange));
+            } catch (RequestException e) {
+                respondError(exchange, e.status, e.getMessage());
+            } catch (RuntimeException e) {
+                System.err.println("failed to answer " + exchange.getRequestURI() + ": " + e);
+                respondError(exchange, 500, "the server failed to answer the request");
+            }
+        } catch (IOException e) {
+            // the client went away, there is no one to tell
+        }
+    }
+
+    // a method to get the parameters of the query, and the body of a POST as the parameter "f"
+    private static Map<String, String> parameters(HttpExchange exchange) throws IOException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = (equals < 0)? (pair):(pair.substring(0, equals));
+                String value = (equals < 0)? (""):(pair.substring(equals + 1));
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                        URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+
+        if (exchange.getRequestMethod().equals("POST")) {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] body = in.readNBytes(MAX_BODY + 1);
+                if (body.length > MAX_BODY)
+                    throw new RequestException(413, "the body is longer than " + MAX_BODY + " bytes");
+                parameters.put("f", new String(body, StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    // a method to get the function of the request, from the parameter "f"
+    private static Function function(Map<String, String> parameters) {
+        String text = parameters.get("f");
+        if (text == null || text.isBlank())
+            throw new RequestException(400, "the function is missing, for example ?f=6,-41,59,-20");
+        Function f;
+        try {
+            f = Function.parse(text);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "the function is not a list of numbers: " + e.getMessage());
+        }
+        if (f.getDegree() > MAX_DEGREE)
+            throw new RequestException(400, "the degree is larger than " + MAX_DEGREE);
+        return f;
+    }
+
+    private static double number(Map<String, String> parameters, String name, double defaultValue) {
+        String value = parameters.get(name);
+        try {
+            return (value == null)? (defaultValue):(Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "the parameter " + name + " is not a number");
+        }
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // a method to answer with the analysis of the function as JSON
+    private void analyze(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        Function f = function(parameters);
+        StringBuilder sb = new StringBuilder(256);
+        analyses.acquireUninterruptibly();
+        try {
+            cache.analyze(f).appendJson(sb);
+        } finally {
+            analyses.release();
+        }
+        respond(exchange, 200, "application/json", sb);
+    }
+
+    // a method to answer with the graph of the function as a PNG image
+    private void render(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        Function f = function(parameters);
+        int width = (int) number(parameters, "width", 400);
+        int height = (int) number(parameters, "height", 300);
+        if (width <= 0 || height <= 0 || (long) width * height > MAX_PIXELS)
+            throw new RequestException(400, "the size of the image must be positive and at most " + MAX_PIXELS
+                    + " pixels");
+
+        PlotSettings settings = new PlotSettings(number(parameters, "minX", -2), number(parameters, "maxX", 2),
+                number(parameters, "minY", -1), number(parameters, "maxY", 1));
+        if (!(settings.getMinX() < settings.getMaxX()) || !(settings.getMinY() < settings.getMaxY()))
+            throw new RequestException(400, "the area of the graph is empty");
+        settings.setPlotColor(Color.BLUE);
+        settings.setGridSpacingX(1);
+        settings.setGridSpacingY(1);
+
+        Graph graph = new Graph(settings);
+        graph.functions.add(new PolynomialPlotter(f));
+
+        renders.acquireUninterruptibly();
+        try {
+            BufferedImage image = graph.getImage(width, height);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+            // the image is streamed to the client while it is encoded, the length is not known before
+            exchange.getResponseHeaders().set("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody();
+                 PngEncoder encoder = new PngEncoder(out, width, height, Deflater.BEST_SPEED)) {
+                encoder.writeRows(pixels, 0, width, height);
+                encoder.finish();
+            }
+        } finally {
+            renders.release();
+        }
+    }
+
+    // a method to answer with the statistics of the cache as JSON
+    private void stats(HttpExchange exchange, Map<String, String> parameters) throws IOException {
+        AnalysisCache.Stats stats = cache.getStats();
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"hits\":").append(stats.getHits())
+                .append(",\"misses\":").append(stats.getMisses())
+                .append(",\"evictions\":").append(stats.getEvictions())
+                .append(",\"size\":").append(stats.getSize())
+                .append(",\"weight\":").append(stats.getWeight()).append('}');
+        respond(exchange, 200, "application/json", sb);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String type, CharSequence body)
+            throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // a method to answer with {"error":"..."}, escaping the message like BatchAnalysis.analyzeLine
+    private static void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder sb = new StringBuilder(64).append("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c >= ' ') sb.append(c);
+        }
+        respond(exchange, status, "application/json", sb.append("\"}"));
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* usage: --serve [port [address]]
+     * the default port is 8080, and the server only listens on the local machine (loopback) unless an address is
+     * given, for example 0.0.0.0 for every network interface
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        int port = (args.length > 1)? (Integer.parseInt(args[1])):(8080);
+        InetAddress address = (args.length > 2)? (InetAddress.getByName(args[2])):(InetAddress.getLoopbackAddress());
+
+        AnalysisServer server = new AnalysisServer(new InetSocketAddress(address, port),
+                new AnalysisCache(100_000, 256L << 20));
+        server.start();
+        System.err.println("listening on http://" + address.getHostAddress() + ":" + server.getPort() + "/");
+    }
+
+}
@@ -0,0 +1,307 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/* a class to analyze many polynomial functions without a user or a window.
+ * the input has one function per line, in the format of Function.parse (for example "6 -41 59 -20"), and the
+ * output has one line of JSON per function (see AnalysisResult.appendJson), in the same order as the input.
+ * a line that can't be parsed gets {"line":n,"error":"..."} instead, and empty lines are skipped.
+ * the output can also be the same reports FunctionAnalysis prints, see runReports.
+ *
+ * the binary formats of BinaryFormat can be used instead of text, for inputs too large to parse.
+ *
+ * the functions are analyzed in parallel on all the cores. the reader may only be a limited number of functions
+ * ahead of the writer, so the memory used does not depend on the size of the input.
+ */
+public class BatchAnalysis {
+    private static final int PENDING_PER_THREAD = 64;
+    // how long the reader waits for room in the queue before it checks that the writer is still running
+    private static final long OFFER_WAIT_MILLIS = 100;
+
+    private final int threads;
+
+    // the first constructor of the class, uses one thread for every core
+    public BatchAnalysis() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // the second constructor of the class, uses the given number of threads
+    public BatchAnalysis(int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("the number of threads must be positive");
+        this.threads = threads;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to analyze every function from in and write the results to out, returns the number of lines written
+    public long run(BufferedReader in, Writer out) throws IOException {
+        return process(lines(in, BatchAnalysis::analyzeLine), result -> {
+            out.write(result);
+            out.write('\n');
+        }, out::flush);
+    }
+
+    /* same as above, but writes the report of every function (see FunctionAnalysis.writeReport) instead of JSON,
+     * returns the number of reports written. the functions are analyzed in parallel, and every report is written
+     * by the writer thread straight into out, so there is no String for a report or any part of it.
+     */
+    public long runReports(BufferedReader in, Writer out) throws IOException {
+        return process(lines(in, BatchAnalysis::reportLine), report -> report.writeTo(out), out::flush);
+    }
+
+    // the input of process for a text input: a task for every line which is not empty
+    private static <R> Source<R> lines(BufferedReader in, LineTask<R> task) {
+        long[] lineNumber = {0};
+        return () -> {
+            String line;
+            do {
+                line = in.readLine();
+                lineNumber[0]++;
+            } while (line != null && line.isBlank());
+
+            if (line == null) return null;
+            String input = line; long number = lineNumber[0];
+            return () -> task.run(input, number);
+        };
+    }
+
+    /* same as above, for the binary formats (see BinaryFormat), returns the number of results written.
+     * a function that can't be analyzed gets a failure record (see BinaryFormat.ResultWriter.writeFailure), and
+     * "record n: ..." is printed to the standard error, counting the records from 0.
+     */
+    public long run(BinaryFormat.PolynomialReader in, BinaryFormat.ResultWriter out) throws IOException {
+        long[] index = {0};
+        return process(() -> {
+            Function f = in.next();
+            if (f == null) return null;
+            long number = index[0]++;
+            return () -> analyzeRecord(f, number);
+        }, record -> record.writeTo(out), () -> {});
+    }
+
+    /* a method to run the tasks from source on the pool and pass their results to sink in the order of the source.
+     * the source is read on the calling thread and the sink is called on a writer thread of its own. when the sink
+     * or a task fails, the writer stops: the reader stops too (it never waits for a writer that stopped), the tasks
+     * which did not start are cancelled, and the error is thrown here.
+     */
+    private <R> long process(Source<R> source, Sink<R> sink, Flush flush) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the results waiting to be written, in the order of the input. a full queue stops the reader
+        BlockingQueue<CompletableFuture<R>> pending = new ArrayBlockingQueue<>(threads * PENDING_PER_THREAD);
+        CompletableFuture<R> endOfInput = CompletableFuture.completedFuture(null);
+        CompletableFuture<Long> writer = new CompletableFuture<>();
+        Thread writerThread = new Thread(() -> {
+            try {
+                writer.complete(writeResults(pending, sink, flush));
+            } catch (Throwable e) {
+                writer.completeExceptionally(e);
+            }
+        }, "batch-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        try {
+            Supplier<R> task;
+            while ((task = source.next()) != null) {
+                if (!offer(pending, CompletableFuture.supplyAsync(task, pool), writer))
+                    break;      // the writer failed, no point in reading on
+            }
+        } finally {
+            offer(pending, endOfInput, writer);
+            if (writer.isDone()) {
+                pool.shutdownNow();
+                pending.clear();
+            } else {
+                pool.shutdown();
+            }
+        }
+
+        try {
+            return writer.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException)
+                throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
+        }
+    }
+
+    // the input of process: the task of the next function, or null at the end of the input
+    private interface Source<R> {
+        Supplier<R> next() throws IOException;
+    }
+
+    // the output of process: called with every result, in order
+    private interface Sink<R> {
+        void write(R result) throws IOException;
+    }
+
+    private interface Flush {
+        void flush() throws IOException;
+    }
+
+    // the work done for one line of a text input
+    private interface LineTask<R> {
+        R run(String line, long lineNumber);
+    }
+
+    // the output of one function of a binary input, written by the writer thread
+    private interface BinaryRecord {
+        void writeTo(BinaryFormat.ResultWriter out) throws IOException;
+    }
+
+    // a method to analyze one line of the input and return its line of output
+    public static String analyzeLine(String line, long lineNumber) {
+        StringBuilder sb = new StringBuilder(256);
+        try {
+            FunctionAnalysis analysis = new FunctionAnalysis(Function.parse(line));
+            analysis.setConcurrentStages(false);    // the functions already run in parallel
+            analysis.analyze().appendJson(sb);
+        } catch (RuntimeException e) {
+            sb.setLength(0);
+            sb.append("{\"line\":").append(lineNumber).append(",\"error\":\"");
+            String message = String.valueOf(e.getMessage());
+            for (int i = 0; i < message.length(); i++) {
+                char c = message.charAt(i);
+                if (c == '"' || c == '\\') sb.append('\\').append(c);
+                else if (c >= ' ') sb.append(c);
+            }
+            sb.append("\"}");
+        }
+        return sb.toString();
+    }
+
+    /* a method to analyze one line of the input and return its report, which is written later by the writer thread.
+     * a line that can't be parsed gets "line n: ..." instead of a report.
+     */
+    private static FunctionAnalysis.Report reportLine(String line, long lineNumber) {
+        try {
+            FunctionAnalysis analysis = new FunctionAnalysis(Function.parse(line));
+            analysis.setConcurrentStages(false);    // the functions already run in parallel
+            AnalysisResult result = analysis.analyze();
+            return out -> analysis.writeReport(result, out);
+        } catch (RuntimeException e) {
+            String message = "line " + lineNumber + ": " + e.getMessage() + "\n";
+            return out -> out.append(message);
+        }
+    }
+
+    // a method to analyze one function of a binary input and return its record
+    private static BinaryRecord analyzeRecord(Function f, long index) {
+        try {
+            FunctionAnalysis analysis = new FunctionAnalysis(f);
+            analysis.setConcurrentStages(false);    // the functions already run in parallel
+            AnalysisResult result = analysis.analyze();
+            return out -> out.write(result);
+        } catch (RuntimeException e) {
+            String message = "record " + index + ": " + e.getMessage();
+            return out -> {
+                out.writeFailure();
+                System.err.println(message);
+            };
+        }
+    }
+
+    // a method to write the results one after the other as they are done, until the end of the input
+    private static <R> long writeResults(BlockingQueue<CompletableFuture<R>> pending, Sink<R> sink, Flush flush) {
+        long written = 0;
+        try {
+            while (true) {
+                R result = pending.take().join();
+                if (result == null) break;
+                sink.write(result);
+                written++;
+            }
+            flush.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return written;
+    }
+
+    /* a method to add an element to the queue, waiting while it is full but only as long as the writer is running.
+     * returns false if the writer stopped (then the element is not added). an interrupt does not stop the waiting,
+     * as the element must not be lost, but it is kept for the caller
+     */
+    private static <T> boolean offer(BlockingQueue<T> queue, T element, CompletableFuture<?> writer) {
+        boolean interrupted = false;
+        try {
+            while (!writer.isDone()) {
+                try {
+                    if (queue.offer(element, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS))
+                        return true;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* usage: --batch [input file]                               reads the standard input when no file is given
+     *        --batch-report [input file]                        the same, but writes the reports of run()
+     *        --batch-binary <polynomial file> <result file>
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length > 0 && args[0].equals("--batch-binary")) {
+            if (args.length != 3)
+                throw new IllegalArgumentException("usage: --batch-binary <polynomial file> <result file>");
+            try (BinaryFormat.PolynomialReader in = new BinaryFormat.PolynomialReader(Paths.get(args[1]));
+                 BinaryFormat.ResultWriter out = new BinaryFormat.ResultWriter(Paths.get(args[2]))) {
+                new BatchAnalysis().run(in, out);
+            }
+            return;
+        }
+
+        BufferedReader in = (args.length > 1)
+                ? Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+
+        try (in) {
+            if (args[0].equals("--batch-report"))
+                new BatchAnalysis().runReports(in, out);
+            else
+                new BatchAnalysis().run(in, out);
+        }
+    }
+
+}
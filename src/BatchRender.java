@@ -0,0 +1,199 @@
+package src;
+
+import src.plotting.Graph;
+import src.plotting.PlotSettings;
+import src.plotting.PngEncoder;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+
+
+/* a class to draw a graph of every polynomial function of a list without a window, one PNG file per function.
+ * the input is the same as for BatchAnalysis, one function per line, and the graph of the function on line n is
+ * saved as n.png in the output directory. a line that can't be parsed is reported on the standard error.
+ *
+ * every graph is drawn from a copy of the same settings. the graphs are drawn in parallel on all the cores, and every
+ * thread draws into its own image (and encodes into its own buffer) again and again, so drawing a graph allocates
+ * almost nothing. the reader may only be a limited number of functions ahead of the threads.
+ */
+public class BatchRender {
+    private static final int PENDING_PER_THREAD = 64;
+
+    private final PlotSettings template;
+    private final int width, height, threads;
+
+    // the images and graphs of the threads, see Canvas
+    private final ThreadLocal<Canvas> canvases;
+
+    // the first constructor of the class, uses one thread for every core
+    public BatchRender(PlotSettings template, int width, int height) {
+        this(template, width, height, Runtime.getRuntime().availableProcessors());
+    }
+
+    // the second constructor of the class, uses the given number of threads
+    public BatchRender(PlotSettings template, int width, int height, int threads) {
+        if (threads <= 0)
+            throw new IllegalArgumentException("the number of threads must be positive");
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("the size of the images must be positive");
+        this.template = template.copy();
+        this.width = width;
+        this.height = height;
+        this.threads = threads;
+        this.canvases = ThreadLocal.withInitial(Canvas::new);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to draw every function from in into the directory, returns the number of images written
+    public long run(BufferedReader in, Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the functions read but not drawn yet. when there are no slots left the reader waits
+        Semaphore slots = new Semaphore(threads * PENDING_PER_THREAD);
+        AtomicLong written = new AtomicLong();
+        AtomicReference<IOException> failure = new AtomicReference<>();
+
+        try {
+            String line;
+            long lineNumber = 0;
+            while ((line = in.readLine()) != null && failure.get() == null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+
+                String input = line; long number = lineNumber;
+                slots.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try {
+                        Function f = Function.parse(input);
+                        writeImage(f, directory.resolve(number + ".png"));
+                        written.incrementAndGet();
+                    } catch (IOException e) {
+                        failure.compareAndSet(null, e);     // a file can't be written, stop reading
+                    } catch (RuntimeException e) {
+                        System.err.println("line " + number + ": " + e.getMessage());
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            awaitUninterruptibly(pool);
+        }
+
+        if (failure.get() != null) throw failure.get();
+        return written.get();
+    }
+
+    // a method to draw the graph of a function into the image of the current thread and save it as a PNG file
+    public void writeImage(Function f, Path file) throws IOException {
+        Canvas canvas = canvases.get();
+        canvas.draw(f);
+
+        canvas.png.reset();
+        // graphs are mostly empty, so the fastest compression is nearly as small as the default and a lot faster
+        try (PngEncoder encoder = new PngEncoder(canvas.png, width, height, Deflater.BEST_SPEED)) {
+            encoder.writeRows(canvas.pixels, 0, width, height);
+            encoder.finish();
+        }
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            canvas.png.writeTo(out);
+        }
+    }
+
+    private static void awaitUninterruptibly(ExecutorService pool) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.DAYS)) break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // the things one thread needs to draw graphs, made once and used for every graph the thread draws
+    private class Canvas {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        final Graphics2D g = image.createGraphics();
+        final Graph graph = new Graph(template.copy());
+        final ByteArrayOutputStream png = new ByteArrayOutputStream(1 << 14);
+
+        // a method to draw the graph of a function over the previous one
+        void draw(Function f) {
+            graph.plotSettings = template.copy();   // drawing a graph may change its settings
+            graph.functions.clear();
+            graph.functions.add(new PolynomialPlotter(f));
+
+            g.setColor(template.getBackgroundColor());
+            g.fillRect(0, 0, width, height);
+            graph.draw(g, width, height);
+        }
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* usage: --render <input file> <output directory> [width height [minX maxX minY maxY]]
+     * reads the standard input when the input file is "-". the default size is 200x150 and the default area is
+     * the one of the graph of FunctionAnalysis
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        if (args.length != 3 && args.length != 5 && args.length != 9)
+            throw new IllegalArgumentException(
+                    "usage: --render <input file> <output directory> [width height [minX maxX minY maxY]]");
+
+        int width = (args.length > 3) ? Integer.parseInt(args[3]) : 200;
+        int height = (args.length > 3) ? Integer.parseInt(args[4]) : 150;
+        PlotSettings settings = (args.length > 5)
+                ? new PlotSettings(Double.parseDouble(args[5]), Double.parseDouble(args[6]),
+                                   Double.parseDouble(args[7]), Double.parseDouble(args[8]))
+                : new PlotSettings(-2, 2, -1, 1);
+        settings.setPlotColor(Color.BLUE);
+        settings.setGridSpacingX(1);
+        settings.setGridSpacingY(1);
+
+        BufferedReader in = args[1].equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8);
+
+        try (in) {
+            long written = new BatchRender(settings, width, height).run(in, Paths.get(args[2]));
+            System.err.println(written + " images written to " + args[2]);
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/* a compact binary format for large batches of functions and their analysis results.
+ * all the numbers are little-endian, and every double starts at a multiple of 8 bytes from the start of the file.
+ *
+ * polynomial file:   "SYMP" (4 bytes), version (int)
+ *                    then for every function: degree n (int), 0 (int), a0, a1, ..., an (n + 1 doubles)
+ *
+ * result file:       "SYMR" (4 bytes), version (int)
+ *                    then for every function, in the same order: the number of roots, minimum points, maximum points
+ *                    and inflection points (4 ints), the points themselves (doubles, in the same order), and the
+ *                    signs of f(x), f'(x) and f''(x) between them (one byte each, 1 or -1), padded to 8 bytes.
+ *                    a function that could not be analyzed has -1 roots and 0 of the other points, and nothing else.
+ *
+ * the polynomial file is read through memory mapping, so the coefficients of every function are copied straight
+ * from the mapped file into its array in one bulk copy, without parsing text.
+ */
+public class BinaryFormat {
+    public static final int POLYNOMIAL_MAGIC = 0x504d5953;     // "SYMP" in little-endian
+    public static final int RESULT_MAGIC = 0x524d5953;         // "SYMR" in little-endian
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+    // how much of the file is mapped at a time (a mapping is limited to 2GB, files can be larger)
+    private static final long WINDOW_SIZE = 1L << 30;
+    // the largest degree of a record that fits in the window
+    private static final int MAX_DEGREE = (int) ((WINDOW_SIZE - 8) / 8 - 1);
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a class to read the functions of a polynomial file one after the other
+    public static class PolynomialReader implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;   // the position of the window in the file
+
+        public PolynomialReader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            map(0);
+
+            if (size < HEADER_SIZE || window.getInt() != POLYNOMIAL_MAGIC)
+                throw new IOException(path + " is not a polynomial file");
+            int version = window.getInt();
+            if (version != VERSION)
+                throw new IOException(path + " has version " + version + ", expected " + VERSION);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        // a method to read the next function, returns null at the end of the file
+        public Function next() throws IOException {
+            long position = windowStart + window.position();
+            if (position == size)
+                return null;
+            if (size - position < 8)
+                throw new IOException("truncated record at byte " + position);
+
+            // move the window forward when the record header is not inside it
+            if (window.remaining() < 8) map(position);
+            int degree = window.getInt(window.position());
+            if (degree < 0)
+                throw new IOException("negative degree at byte " + position);
+            // checked before the size is worked out, degree + 1 overflows for the largest int
+            if (degree > MAX_DEGREE)
+                throw new IOException("corrupt record at byte " + position + ", degree " + degree + " is too large");
+
+            long recordSize = 8 + 8L * (degree + 1);
+            if (size - position < recordSize)
+                throw new IOException("truncated record at byte " + position);
+            if (window.remaining() < recordSize) map(position);
+
+            window.position(window.position() + 8);
+            double[] coeffs = new double[degree + 1];
+            DoubleBuffer doubles = window.asDoubleBuffer();     // a view of the mapped file, starting at a0
+            doubles.get(coeffs);
+            window.position(window.position() + 8 * (degree + 1));
+            return new Function(coeffs);
+        }
+
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a class to write a binary file through a buffer, the base of the writers below
+    private static class BufferedChannelWriter implements Closeable {
+        private final FileChannel channel;
+        protected final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        BufferedChannelWriter(Path path, int magic) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            ensure(HEADER_SIZE);
+            buffer.putInt(magic).putInt(VERSION);
+        }
+
+        // a method to make sure there are at least count free bytes in the buffer
+        protected void ensure(int count) throws IOException {
+            if (buffer.remaining() >= count) return;
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        protected void putDoubles(double[] values) throws IOException {
+            for (double value : values) {
+                ensure(8);
+                buffer.putDouble(value);
+            }
+        }
+
+        public void close() throws IOException {
+            try {
+                ensure(WRITE_BUFFER_SIZE);  // flushes everything
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // a class to write functions to a polynomial file (to prepare the input of a batch)
+    public static class PolynomialWriter extends BufferedChannelWriter {
+
+        public PolynomialWriter(Path path) throws IOException {
+            super(path, POLYNOMIAL_MAGIC);
+        }
+
+        public void write(Function f) throws IOException {
+            ensure(8);
+            buffer.putInt(f.getDegree()).putInt(0);
+            for (int i = 0; i <= f.getDegree(); i++) {
+                ensure(8);
+                buffer.putDouble(f.getCoefficient(i));
+            }
+        }
+    }
+
+    // a class to write analysis results to a result file
+    public static class ResultWriter extends BufferedChannelWriter {
+
+        public ResultWriter(Path path) throws IOException {
+            super(path, RESULT_MAGIC);
+        }
+
+        public void write(AnalysisResult result) throws IOException {
+            ensure(16);
+            buffer.putInt(result.getRoots().length).putInt(result.getMinPoints().length)
+                  .putInt(result.getMaxPoints().length).putInt(result.getInflectionPoints().length);
+            putDoubles(result.getRoots());
+            putDoubles(result.getMinPoints());
+            putDoubles(result.getMaxPoints());
+            putDoubles(result.getInflectionPoints());
+
+            int signs = putSigns(result.getSigns()) + putSigns(result.getDerivativeSigns())
+                    + putSigns(result.getSecondDerivativeSigns());
+            for (; signs % 8 != 0; signs++) {
+                ensure(1);
+                buffer.put((byte) 0);
+            }
+        }
+
+        // writes the record of a function that could not be analyzed, so the results stay in the order of the input
+        public void writeFailure() throws IOException {
+            ensure(16);
+            buffer.putInt(-1).putInt(0).putInt(0).putInt(0);
+        }
+
+        private int putSigns(int[] signs) throws IOException {
+            for (int sign : signs) {
+                ensure(1);
+                buffer.put((byte) sign);
+            }
+            return signs.length;
+        }
+    }
+
+}
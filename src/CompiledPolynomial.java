@@ -0,0 +1,324 @@
+package src;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+
+
+/* a polynomial function specialized for fast repeated evaluation.
+ * the evaluator is a hidden class generated at runtime for this polynomial, where every coefficient is a constant
+ * of the class (ldc2_w) and Horner's rule is fully unrolled. for example, f(x) = 6x³ - 41x² + 59x - 20 is compiled to
+ *
+ *   double calcValue(double x) { return ((6 * x + -41) * x + 59) * x + -20; }
+ *
+ * and calcValues is the same expression in a loop over the array. there is no loop over the coefficients and no
+ * array access left, so the JIT folds the constants into the instructions and vectorizes the loop of calcValues.
+ * the steps are the same as in the Horner loop of Function.calcValue, so the results are exactly the same.
+ *
+ * a hidden class is not reachable by name, so it is unloaded with the CompiledPolynomial that uses it.
+ */
+public class CompiledPolynomial {
+    // above this degree the generated methods get too long for the JIT to inline, so a Horner loop is used instead
+    private static final int MAX_UNROLLED_DEGREE = 16;
+
+    private final double[] coefficients;
+    private final Evaluator evaluator; // null when the polynomial is evaluated by the loop
+
+    // the constructor of the class, the coefficients are copied so the compiled function can't change later
+    public CompiledPolynomial(double[] coeffs) {
+        this.coefficients = Arrays.copyOf(coeffs, coeffs.length);
+        this.evaluator = (getDegree() <= MAX_UNROLLED_DEGREE)? (Generator.define(coefficients)):(null);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to get the degree of the polynomial function
+    public int getDegree() {
+        return coefficients.length - 1;
+    }
+
+    // a method to check if the evaluator was generated, or if the polynomial is too long and uses the Horner loop
+    public boolean isUnrolled() {
+        return evaluator != null;
+    }
+
+    // a method to calculate f(x) for a given x
+    public double calcValue(double x) {
+        if (evaluator != null)
+            return evaluator.calcValue(x);
+
+        double result = coefficients[coefficients.length - 1];
+        for (int i = coefficients.length - 2; i >= 0; i--)
+            result = result * x + coefficients[i];
+        return result;
+    }
+
+    // a method to calculate f(x) for every x in xs and write the results into out (out[i] = f(xs[i]))
+    public void calcValues(double[] xs, double[] out) {
+        calcValues(xs, out, xs.length);
+    }
+
+    // same as above, but only for the first count values of xs
+    public void calcValues(double[] xs, double[] out, int count) {
+        if (evaluator != null)
+            evaluator.calcValues(xs, out, count);
+        else
+            PolynomialSampler.sample(coefficients, xs, out, count);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // the class the generated evaluators extend, it has to be visible to them (same package)
+    abstract static class Evaluator {
+        abstract double calcValue(double x);
+
+        abstract void calcValues(double[] xs, double[] out, int count);
+    }
+
+    /* a class to write the class file of an evaluator and define it as a hidden class in this package.
+     * the class file has the constant pool (the names and the coefficients), a constructor, and the two methods:
+     *
+     *   calcValue:   ldc2_w a(n)  { dload_1  dmul  ldc2_w a(i)  dadd }  dreturn
+     *   calcValues:  for (int i = 0; i < count; i++) { double x = xs[i]; out[i] = <the same steps with x>; }
+     */
+    private static final class Generator {
+        private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+        private static final String NAME = "src/CompiledPolynomial$Unrolled";
+        private static final String SUPER = "src/CompiledPolynomial$Evaluator";
+
+        // the class file version of Java 17, which must have stack map frames (see writeCalcValues)
+        private static final int VERSION = 61;
+        private static final int ACC_PUBLIC = 0x0001, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+        // the tags of the constant pool, and the opcodes used
+        private static final int UTF8 = 1, DOUBLE = 6, CLASS = 7, METHOD_REF = 10, NAME_AND_TYPE = 12;
+        private static final int ICONST_0 = 0x03, LDC2_W = 0x14, ILOAD = 0x15, ILOAD_3 = 0x1d, ALOAD_0 = 0x2a,
+                ALOAD_1 = 0x2b, ALOAD_2 = 0x2c, DLOAD = 0x18, DLOAD_1 = 0x27, DALOAD = 0x31, ISTORE = 0x36,
+                DSTORE = 0x39, DASTORE = 0x52, DADD = 0x63, DMUL = 0x6b, IINC = 0x84, IF_ICMPGE = 0xa2,
+                GOTO = 0xa7, DRETURN = 0xaf, RETURN = 0xb1, INVOKESPECIAL = 0xb7;
+
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream constants = new DataOutputStream(pool);
+        private int poolCount = 1;
+
+        private Generator() {
+        }
+
+        // a method to generate the evaluator of the coefficients and create an instance of it
+        static Evaluator define(double[] coeffs) {
+            try {
+                byte[] classFile = new Generator().write(coeffs);
+                Class<?> type = LOOKUP.defineHiddenClass(classFile, true).lookupClass();
+                return (Evaluator) type.getDeclaredConstructor().newInstance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("can't define the evaluator", e);
+            }
+        }
+
+        private byte[] write(double[] coeffs) throws IOException {
+            int thisClass = addClass(NAME);
+            int superClass = addClass(SUPER);
+            int superInit = addMethodRef(superClass, "<init>", "()V");
+            int code = addUtf8("Code");
+            int stackMapTable = addUtf8("StackMapTable");
+
+            // the coefficients, a double takes two entries of the constant pool
+            int[] coefficientIndex = new int[coeffs.length];
+            for (int i = 0; i < coeffs.length; i++) {
+                coefficientIndex[i] = poolCount;
+                constants.writeByte(DOUBLE);
+                constants.writeDouble(coeffs[i]);
+                poolCount += 2;
+            }
+
+            ByteArrayOutputStream methods = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(methods);
+            writeMethod(out, addUtf8("<init>"), addUtf8("()V"), code, 1, 1, constructor(superInit), null);
+            writeMethod(out, addUtf8("calcValue"), addUtf8("(D)D"), code, 4, 3, calcValue(coefficientIndex), null);
+            writeCalcValues(out, addUtf8("calcValues"), addUtf8("([D[DI)V"), code, stackMapTable, coefficientIndex);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream file = new DataOutputStream(bytes);
+            file.writeInt(0xCAFEBABE);
+            file.writeShort(0);
+            file.writeShort(VERSION);
+            file.writeShort(poolCount);
+            pool.writeTo(file);
+            file.writeShort(ACC_FINAL | ACC_SUPER);
+            file.writeShort(thisClass);
+            file.writeShort(superClass);
+            file.writeShort(0);          // interfaces
+            file.writeShort(0);          // fields
+            file.writeShort(3);          // methods
+            methods.writeTo(file);
+            file.writeShort(0);          // attributes
+            return bytes.toByteArray();
+        }
+
+        private byte[] constructor(int superInit) {
+            return new byte[] {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (superInit >> 8), (byte) superInit,
+                    (byte) RETURN};
+        }
+
+        private byte[] calcValue(int[] coefficientIndex) {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            writeHorner(code, coefficientIndex, DLOAD_1, -1);
+            code.write(DRETURN);
+            return code.toByteArray();
+        }
+
+        /* a method to write the unrolled Horner steps, which leave f(x) on the stack. x is loaded with the given
+         * opcode (and local variable, if it is not -1)
+         */
+        private static void writeHorner(ByteArrayOutputStream code, int[] coefficientIndex, int loadX, int local) {
+            int n = coefficientIndex.length - 1;
+            writeLdc2(code, coefficientIndex[n]);
+            for (int i = n - 1; i >= 0; i--) {
+                code.write(loadX);
+                if (local >= 0)
+                    code.write(local);
+                code.write(DMUL);
+                writeLdc2(code, coefficientIndex[i]);
+                code.write(DADD);
+            }
+        }
+
+        private static void writeLdc2(ByteArrayOutputStream code, int index) {
+            code.write(LDC2_W);
+            code.write(index >> 8);
+            code.write(index);
+        }
+
+        /* a method to write calcValues. the locals are this, xs, out, count, i (4) and x (5 and 6).
+         * the loop needs a stack map frame where it starts (i was added to the locals of the method) and where it
+         * ends (the same locals), as the verifier of Java 7 and later does not infer them
+         */
+        private void writeCalcValues(DataOutputStream out, int name, int descriptor, int codeName, int stackMapTable,
+                                     int[] coefficientIndex) throws IOException {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            code.write(ICONST_0);
+            code.write(ISTORE);
+            code.write(4);
+
+            int loop = code.size();
+            code.write(ILOAD);
+            code.write(4);
+            code.write(ILOAD_3);
+            int exitBranch = code.size();
+            code.write(IF_ICMPGE);
+            code.write(0);              // the offset is written below, when the end is known
+            code.write(0);
+
+            code.write(ALOAD_1);
+            code.write(ILOAD);
+            code.write(4);
+            code.write(DALOAD);
+            code.write(DSTORE);
+            code.write(5);
+            code.write(ALOAD_2);
+            code.write(ILOAD);
+            code.write(4);
+            writeHorner(code, coefficientIndex, DLOAD, 5);
+            code.write(DASTORE);
+            code.write(IINC);
+            code.write(4);
+            code.write(1);
+            int back = loop - code.size();
+            code.write(GOTO);
+            code.write(back >> 8);
+            code.write(back);
+
+            int end = code.size();
+            code.write(RETURN);
+
+            byte[] bytes = code.toByteArray();
+            int exit = end - exitBranch;
+            bytes[exitBranch + 1] = (byte) (exit >> 8);
+            bytes[exitBranch + 2] = (byte) exit;
+
+            ByteArrayOutputStream frames = new ByteArrayOutputStream();
+            DataOutputStream stackMap = new DataOutputStream(frames);
+            stackMap.writeShort(2);
+            stackMap.writeByte(252);                    // append_frame with one more local,
+            stackMap.writeShort(loop);
+            stackMap.writeByte(1);                      // an int (i)
+            stackMap.writeByte(251);                    // same_frame_extended
+            stackMap.writeShort(end - loop - 1);
+
+            // aref, int and two doubles on the stack at most
+            writeMethod(out, name, descriptor, codeName, 6, 7, bytes, new byte[][] {
+                    attribute(stackMapTable, frames.toByteArray())});
+        }
+
+        private static byte[] attribute(int name, byte[] content) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(name);
+            out.writeInt(content.length);
+            out.write(content);
+            return bytes.toByteArray();
+        }
+
+        private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeName, int maxStack,
+                                        int maxLocals, byte[] code, byte[][] codeAttributes) throws IOException {
+            int attributesLength = 0;
+            if (codeAttributes != null) {
+                for (byte[] attribute : codeAttributes)
+                    attributesLength += attribute.length;
+            }
+
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(2 + 2 + 4 + code.length + 2 + 2 + attributesLength);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);      // exception table
+            out.writeShort((codeAttributes == null)? (0):(codeAttributes.length));
+            if (codeAttributes != null) {
+                for (byte[] attribute : codeAttributes)
+                    out.write(attribute);
+            }
+        }
+
+        // the entries of the constant pool, each method returns the index of the entry
+        private int addUtf8(String value) throws IOException {
+            constants.writeByte(UTF8);
+            constants.writeUTF(value);
+            return poolCount++;
+        }
+
+        private int addClass(String name) throws IOException {
+            int nameIndex = addUtf8(name);
+            constants.writeByte(CLASS);
+            constants.writeShort(nameIndex);
+            return poolCount++;
+        }
+
+        private int addMethodRef(int owner, String name, String descriptor) throws IOException {
+            int nameIndex = addUtf8(name);
+            int descriptorIndex = addUtf8(descriptor);
+            constants.writeByte(NAME_AND_TYPE);
+            constants.writeShort(nameIndex);
+            constants.writeShort(descriptorIndex);
+            int nameAndType = poolCount++;
+            constants.writeByte(METHOD_REF);
+            constants.writeShort(owner);
+            constants.writeShort(nameAndType);
+            return poolCount++;
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package src;
+
+
+/* a class to divide polynomials by the factors of their roots (deflation), without recursion or allocation.
+ * the coefficients are in the same order as in Function: coeffs[i] is the coefficient of xⁱ. every method writes the
+ * quotient into a buffer given by the caller, which may be the coefficients array itself (the division is done in
+ * place), and returns the degree of the quotient.
+ *
+ * dividing by a root r can be done from either end of the polynomial:
+ * forward (from the leading coefficient, like long division):   qₙ₋₁ = aₙ,  qₖ₋₁ = aₖ + r * qₖ
+ * backward (from the constant):                                 q₀ = -a₀ / r,  qₖ = (qₖ₋₁ - aₖ) / r
+ * for an exact root both give the same quotient, but an approximated root has a small error which is multiplied by
+ * r in every forward step and divided by r in every backward step. so forward deflation is used for |r| <= 1 and
+ * backward deflation for |r| > 1, which keeps the error from growing (Wilkinson). for a value which is not a root
+ * only forward deflation is the quotient of long division, see divideForward.
+ */
+public final class Deflation {
+    private Deflation() {
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* a method to divide the polynomial by (x - root), choosing the stable direction (see above).
+     * returns the degree of the quotient, which is written to out[0..degree-1].
+     */
+    public static int divide(double[] coeffs, int degree, double root, double[] out) {
+        AnalysisEvents.PolynomialDivision event = new AnalysisEvents.PolynomialDivision();
+        event.begin();
+        if (Math.abs(root) <= 1)
+            divideForward(coeffs, degree, root, out);
+        else
+            divideBackward(coeffs, degree, root, out);
+        event.commit(degree, root);
+        return degree - 1;
+    }
+
+    /* a method to divide the polynomial by (x - root) from the leading coefficient, returns the remainder.
+     * this is the quotient of long division for any root (see Function.polDivRec).
+     */
+    public static double divideForward(double[] coeffs, int degree, double root, double[] out) {
+        double carry = coeffs[degree];
+        for (int k = degree; k >= 1; k--) {
+            double next = coeffs[k - 1];    // read before out[k - 1] is written, so out may be coeffs
+            out[k - 1] = carry;
+            carry = next + root * carry;
+        }
+        return carry;
+    }
+
+    /* a method to divide the polynomial by (x - root) from the constant, assuming the remainder is zero.
+     * returns the difference between the leading coefficient and the one the quotient gives back (0 for an exact
+     * root). the root must not be 0.
+     */
+    public static double divideBackward(double[] coeffs, int degree, double root, double[] out) {
+        double leading = coeffs[degree];
+        double previous = 0;
+        for (int k = 0; k < degree; k++) {
+            previous = (previous - coeffs[k]) / root;
+            out[k] = previous;
+        }
+        return leading - previous;
+    }
+
+    /* a method to divide the polynomial by several roots one after the other, each in the stable direction.
+     * returns the degree of the quotient, which is written to out[0..degree-count-1].
+     */
+    public static int divide(double[] coeffs, int degree, double[] roots, int count, double[] out) {
+        if (count == 0 && coeffs != out)
+            System.arraycopy(coeffs, 0, out, 0, degree + 1);
+        for (int i = 0; i < count; i++)
+            degree = divide((i == 0)? (coeffs):(out), degree, roots[i], out);
+        return degree;
+    }
+
+    /* a method to divide the polynomial by the quadratic factor x² + px + q, for example the factor
+     * (x - z)(x - z̄) = x² - 2Re(z)x + |z|² of a pair of complex roots, so the quotient stays real.
+     * the direction is chosen like for a single root, by the size of the roots of the factor (|z|² = q).
+     * returns the degree of the quotient, which is written to out[0..degree-2].
+     */
+    public static int divideQuadratic(double[] coeffs, int degree, double p, double q, double[] out) {
+        AnalysisEvents.PolynomialDivision event = new AnalysisEvents.PolynomialDivision();
+        event.begin();
+        if (Math.abs(q) <= 1)
+            divideQuadraticForward(coeffs, degree, p, q, out);
+        else
+            divideQuadraticBackward(coeffs, degree, p, q, out);
+        event.commit(degree, Math.sqrt(Math.abs(q)));
+        return degree - 2;
+    }
+
+    // same as above from the leading coefficient: bₖ = aₖ₊₂ - p * bₖ₊₁ - q * bₖ₊₂
+    public static void divideQuadraticForward(double[] coeffs, int degree, double p, double q, double[] out) {
+        double b1 = 0, b2 = 0;      // bₖ₊₁ and bₖ₊₂
+        for (int k = degree - 2; k >= 0; k--) {
+            double b = coeffs[k + 2] - p * b1 - q * b2;
+            if (k + 2 <= degree - 2)
+                out[k + 2] = b2;    // aₖ₊₂ was just read for the last time, so out may be coeffs
+            b2 = b1;
+            b1 = b;
+        }
+        // the two lowest coefficients of the quotient were not written yet
+        if (degree >= 3) out[1] = b2;
+        if (degree >= 2) out[0] = b1;
+    }
+
+    // same as above from the constant, assuming the remainder is zero: bₖ = (aₖ - p * bₖ₋₁ - bₖ₋₂) / q
+    public static void divideQuadraticBackward(double[] coeffs, int degree, double p, double q, double[] out) {
+        double b1 = 0, b2 = 0;      // bₖ₋₁ and bₖ₋₂
+        for (int k = 0; k <= degree - 2; k++) {
+            double b = (coeffs[k] - p * b1 - b2) / q;
+            out[k] = b;
+            b2 = b1;
+            b1 = b;
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package src;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Scanner;
 import java.util.Arrays;
-import java.util.Random;
 
 
 public class Function {
     private static final double ROUNDING_DIST = 0.0001;
     private static final double ROUNDING_CONST = 1000.0;
-    private static final int APPROX_DEPTH = 10000;
+
+    // the solver used to find the roots of the function when no other solver is given
+    private static final RootSolver DEFAULT_SOLVER = new NewtonRaphsonSolver();
 
     private static Scanner scan = new Scanner(System.in);
     private double[] coefficients;
@@ -27,6 +30,26 @@ public class Function {
         this.coefficients = coeffs;
     }
 
+    /* a method to create a function from a line of text with the coefficients in the same order the user enters
+     * them, from the leading coefficient to the constant, separated by spaces or commas.
+     * for example: "6 -41 59 -20" is f(x) = 6x³ - 41x² + 59x - 20. leading zeros are ignored.
+     */
+    public static Function parse(String line) {
+        String[] tokens = line.trim().split("[\\s,]+");
+        if (tokens.length == 0 || tokens[0].isEmpty())
+            throw new NumberFormatException("no coefficients in \"" + line + "\"");
+
+        // skip the leading zeros, the leading coefficient can't be 0 (unless the function is f(x) = 0)
+        int first = 0;
+        while (first < tokens.length - 1 && Double.parseDouble(tokens[first]) == 0)
+            first++;
+
+        double[] coeffs = new double[tokens.length - first];
+        for (int i = 0; i < coeffs.length; i++)
+            coeffs[coeffs.length - 1 - i] = Double.parseDouble(tokens[first + i]);
+        return new Function(coeffs);
+    }
+
     // ______________________________________________________________________________________________________________
     // ______________________________________________________________________________________________________________
 
@@ -94,68 +117,81 @@ public class Function {
         return (i > getDegree())? (0):(coefficients[i]);
     }
     
-    // representation of the function, printed user-friendly
+    // representation of the function, printed user-friendly (see appendTo)
     public String toString() {
+        StringBuilder repr = new StringBuilder(16 * coefficients.length);
+        try {
+            appendTo(repr);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);      // a StringBuilder does not throw
+        }
+        return repr.toString();
+    }
+
+    /* a method to write the representation of the function into out, term after term without building a String.
+     * the terms are written with TextFormat.appendTerm, which follows these rules:
+     * 1. a term with the coefficient 0 is ignored: [2, 0, -3] is printed as "-3x^2 + 2", not as "-3x^2 + 0x + 2"
+     * 2. the sign of the leading term has no spaces: [2, -2] is printed as "-2x + 2", not as " - 2x + 2", and
+     *    [2, 2] as "2x + 2", not as " + 2x + 2"
+     * 3. a coefficient of 1 is ignored: [2, 1] is printed as "x + 2", not as "1x + 2"
+     * 4. an integer coefficient has no decimal point: [2, 2] is printed as "2x + 2", not as "2.0x + 2.0", and the
+     *    others are smart-rounded: [1.385, 2] is printed as "2x + 1.385"
+     * 5. x⁰ = 1 is not printed, x¹ is printed as "x" and the other powers as "x^" + the degree
+     */
+    public void appendTo(Appendable out) throws IOException {
         int n = getDegree();
 
         // if the function is constant, f(x) = coefficients[0]
         if (n == 0) {
-            if (coefficients[0] == Math.round(coefficients[0])) 
-                return "" + Math.round(coefficients[0]);
-            return "" + smartRound(coefficients[0]);
+            TextFormat.appendConstant(out, coefficients[0]);
+            return;
         }
-        
-        double coeff;
-        String repr = "", sign, xExpression, coeffRepr;
-        
-        for (int i = n; i >= 0; i--) {
-            // if the coefficient is 0, ignore the current expression
-            if (coefficients[i] == 0) continue; // example: we want to print [-3, 0, 2] as "-3x² + 2", not as "-3x² + 0x + 2"
-            
-            // get the correct form of sign of the coefficient
-            if (i == n) {                                       // examples: (1) we want to print [-2, 2] as "-2x + 2", not as " - 2x + 2"
-                sign = (coefficients[i] > 0)? (""):("-");       //           (2) we want to print [2, 2] as "2x + 2", not as " + 2x + 2"
-            } else {
-                sign = (coefficients[i] > 0)? (" + "):(" - ");  // the other signs will be printed with spaces
-            }
 
-            // get the correct form of the coefficient
-            coeff = smartRound(Math.abs(coefficients[i]));  // get the positive and smart-rounded value (sign is already set)
-            if (coeff == 1 && i != 0) {                     // if the coefficient is 1, ignore it
-                coeffRepr = "";                                 // example: we want to print [1, 2] as "x + 2", not as "1x + 2"
-            } else if (coeff == Math.round(coeff)) {        // if the coefficient is not 1 but is an integer, get the integer value
-                coeffRepr = "" + Math.round(coeff);             // example: we want to print [2, 2] as "2x + 2", not as "2.0x + 2.0"
-            } else {                                        // otherwise, add the coefficient as is
-                coeffRepr = "" + coeff;                         // example: we want to print [2, 1.385] as "2x + 1.385"
-            }
-            
-            // get the correct form of the x expression
-            if (i == 0) {
-                xExpression = "";       // if the degree of x is 0, ignore it (x⁰ = 1)
-            } else if (i == 1) {
-                xExpression = "x";      // if the degree of x is 1, add only "x" (x¹ = x)
-            } else {
-                xExpression = "x^" + i; // otherwise, add "x^" + the degree
-            }
-            
-            // finally, add all the representations to repr
-            repr += (sign + coeffRepr + xExpression);
+        for (int i = n; i >= 0; i--) {
+            if (coefficients[i] != 0)
+                TextFormat.appendTerm(out, coefficients[i], i, i == n);
         }
-        
-        return repr;
-	}
+    }
 
     // ______________________________________________________________________________________________________________
     // ______________________________________________________________________________________________________________
 
-    // a method to calculate f(x) for a given x
+    /* a method to calculate f(x) for a given x, using Horner's rule.
+     * instead of computing every power of x separately, the polynomial is evaluated from the leading coefficient:
+     * 6x³ - 41x² + 59x - 20 = ((6x - 41)x + 59)x - 20, which needs only one multiplication and one addition per term.
+     */
     public double calcValue(double x) {
-        double result = 0;
-		for (int i = 0; i < coefficients.length; i++)
-			result += coefficients[i] * Math.pow(x, i);
+        double result = coefficients[coefficients.length - 1];
+		for (int i = coefficients.length - 2; i >= 0; i--)
+			result = result * x + coefficients[i];
 		return result;
 	}
 
+    // same as above, for the polynomial in coeffs[0..degree]
+    private static double calcValue(double[] coeffs, int degree, double x) {
+        double result = coeffs[degree];
+        for (int i = degree - 1; i >= 0; i--)
+            result = result * x + coeffs[i];
+        return result;
+    }
+
+    // a method to calculate f(x) for every x in xs and write the results into out (out[i] = f(xs[i]))
+    public void calcValues(double[] xs, double[] out) {
+        calcValues(xs, out, xs.length);
+    }
+
+    // same as above, but only for the first count values of xs
+    public void calcValues(double[] xs, double[] out, int count) {
+        PolynomialSampler.sample(coefficients, xs, out, count);
+    }
+
+    /* a method to get a compiled copy of the function, used when the same function is evaluated many times
+     * (for example by the graph, which evaluates it for every pixel in every frame)
+     */
+    public CompiledPolynomial compile() {
+        return new CompiledPolynomial(coefficients);
+    }
+
     /* a method to get the derivative of the function
      * for example: if f(x) = 6x³ - 41x² + 59x - 20 then the derivative is f'(x) = 18x² - 82x + 59
      */
@@ -207,23 +243,10 @@ public class Function {
     // ______________________________________________________________________________________________________________
 
     /* a method to approximate a root of the function using the Newton-Raphson technique.
-     * for a given function f(x) we can approximate a root of the function using the following recurrence relation:
-     * an+1 = an - f(an) / f'(an) where f'(x) is the derivative of f(x) and the initial term a0 is randomly chosen.
+     * the iteration stops once it converged, see NewtonRaphsonSolver for the details.
      */
     public double newtonRaphson() {
-        Random rand = new Random();
-        double a0 = (rand.nextDouble() + 1) * 10;
-        Function derivative = calcDerivative();
-
-        // make sure the denominator is not 0 so we don't divide by 0
-        while (derivative.calcValue(a0) == 0)
-            a0 = (rand.nextDouble() + 1) * 10;
-        
-        double current = a0, next = a0;
-        for (int i = 0; i < APPROX_DEPTH; i++) {
-            next = current - this.calcValue(current) / derivative.calcValue(current);
-            current = next;
-        } return next;
+        return DEFAULT_SOLVER.findRoot(coefficients, getDegree());
     }
 
 
@@ -234,7 +257,7 @@ public class Function {
         return polDivRec(this.coefficients, -alpha, new double[getDegree()]);
     }
     
-    /* a recursive method to execute the polynomial division.
+    /* a method to execute the polynomial division, dividing by (x + alpha).
      * for example: f(x) = 6x³ - 41x² + 59x - 20, divided by (x - 5).
      * notice that f(x) = (6x² - 11x + 4)(x - 5) so we expect the result to be (6x² - 11x + 4).
      * the technique is exactly like long division but for polynomials:
@@ -252,17 +275,15 @@ public class Function {
      *                ———————
      *                      0
      * the remainder is zero because 5 is a root of f(x), and that will be the case when we call this function.
+     * every step of the long division only needs the leading coefficient of the current remainder, so the division
+     * is done in one pass over the coefficients into resCoeffs (see Deflation.divideForward). current is not changed.
      */
     public static double[] polDivRec(double[] current, double alpha, double[] resCoeffs) {
-        int pos = current.length - 1;   // == getDegree()
-        if (pos == 0)                   // if the degree is 0 then we finished the division
-            return resCoeffs;
-        
-        double[] divRes = Arrays.copyOf(current, pos);              // divRes is the result of the current division
-        divRes[pos - 1] = current[pos - 1] - current[pos] * alpha;  // subtract (x - a) * the leading coefficient
-
-        resCoeffs[pos - 1] = current[pos];          // update the coefficient of the final result
-        return polDivRec(divRes, alpha, resCoeffs); // continue the division with the current remainder
+        AnalysisEvents.PolynomialDivision event = new AnalysisEvents.PolynomialDivision();
+        event.begin();
+        Deflation.divideForward(current, current.length - 1, -alpha, resCoeffs);
+        event.commit(current.length - 1, -alpha);
+        return resCoeffs;
     }
 
     // ______________________________________________________________________________________________________________
@@ -270,14 +291,85 @@ public class Function {
 
     // helper method for finding the other roots of a function when one root is given
     public double[] getRootsWhenExists(double root) {
-        // divide the polynomial by (x - root) and find the roots of the result
-        Function result = new Function(polynomialDivision(root));
-        double[] rootsArray = result.findRoots();
+        return getRootsWhenExists(root, DEFAULT_SOLVER);
+    }
+
+    /* same as above, the other roots are found using the given solver.
+     * the function is divided by (x - root) in a copy of its coefficients, and then again by every root found in the
+     * quotient, in place (see Deflation), so there is no Function and no array for every level of the division.
+     */
+    public double[] getRootsWhenExists(double root, RootSolver solver) {
+        double[] work = Arrays.copyOf(coefficients, coefficients.length);
+        double[] roots = new double[getDegree()];
+
+        int degree = Deflation.divide(work, getDegree(), root, work);
+        int count = findRoots(work, degree, solver, roots, 0);
 
         // add the given root to the roots array and return it
-        rootsArray = Arrays.copyOf(rootsArray, rootsArray.length + 1);
-        rootsArray[rootsArray.length - 1] = root;
-        return rootsArray;
+        roots[count++] = root;
+        return Arrays.copyOf(roots, count);
+    }
+
+    /* a method to find the roots of the polynomial in work[0..degree] and add them to roots from index count, returns
+     * the new count. it works like findRoots (see findRootsOdd and findRootsEven) but divides work in place.
+     */
+    private static int findRoots(double[] work, int degree, RootSolver solver, double[] roots, int count) {
+        while (degree > 0) {
+            if (degree == 1) {
+                roots[count++] = -work[0] / work[1];
+                break;
+            }
+
+            double root = (degree % 2 == 1)? (solver.findRoot(work, degree)):
+                    (findRootEven(work, degree, solver, derivativeRoots(work, degree, solver)));
+            if (Double.isNaN(root))     // an even degree without real roots
+                break;
+
+            roots[count++] = root;
+            degree = Deflation.divide(work, degree, root, work);
+        }
+        return count;
+    }
+
+    // a method to find the roots of the derivative of the polynomial in coeffs[0..degree], like calcDerivative
+    private static double[] derivativeRoots(double[] coeffs, int degree, RootSolver solver) {
+        double[] derivative = new double[degree];
+        for (int i = 0; i < degree; i++)
+            derivative[i] = smartRound((i + 1) * coeffs[i + 1]);
+
+        // every derivative gets its own FindRoots event, inside the event of the function. the text of the derivative
+        // is made first, as finding its roots divides it in place
+        AnalysisEvents.FindRoots event = new AnalysisEvents.FindRoots();
+        String text = (event.isEnabled())? (new Function(Arrays.copyOf(derivative, degree)).toString()):(null);
+        event.begin();
+        double[] roots = new double[degree - 1];
+        roots = Arrays.copyOf(roots, findRoots(derivative, degree - 1, solver, roots, 0));
+        event.commit(text, degree - 1, roots);
+        return roots;
+    }
+
+    /* a method to find one root of a polynomial with an even degree, given its extrema points (see findRootsEven),
+     * returns NaN if it has no real roots.
+     */
+    private static double findRootEven(double[] coeffs, int degree, RootSolver solver, double[] extremaPoints) {
+        boolean allPositive = true; boolean allNegative = true;
+        for (double x : extremaPoints) {
+            double value = calcValue(coeffs, degree, x);
+            if (value > 0) {                    // the extrema point is above the x axis
+                allNegative = false;
+            } else if (value < 0) {             // the extrema point is below the x axis
+                allPositive = false;
+            } else {                            // the extrema point is a root of the function
+                return x;
+            }
+        }
+
+        // check if there is a root to function according to the explanation of findRootsEven
+        boolean option1 = (coeffs[degree] < 0 && allPositive);
+        boolean option2 = (coeffs[degree] > 0 && allNegative);
+        if (option1 || option2 || (!allPositive && !allNegative))
+            return solver.findRoot(coeffs, degree);
+        return Double.NaN;
     }
 
     /* a method to find the roots of a function with an odd degree.
@@ -285,9 +377,14 @@ public class Function {
      * therefore, we can compute this root using the Newton-Raphson technique.
      */
     public double[] findRootsOdd() {
+        return findRootsOdd(DEFAULT_SOLVER);
+    }
+
+    // same as above, using the given solver
+    public double[] findRootsOdd(RootSolver solver) {
         if (getDegree() == 1)
             return (new double[] {-coefficients[0] / coefficients[1]});
-        return getRootsWhenExists(newtonRaphson());
+        return getRootsWhenExists(solver.findRoot(coefficients, getDegree()), solver);
     }
 
     /* a method to find the roots of a function with an even degree.
@@ -299,46 +396,52 @@ public class Function {
      * root of the function, because there are positive and negative values of the function.
      */
     public double[] findRootsEven() {
+        return findRootsEven(DEFAULT_SOLVER);
+    }
+
+    // same as above, using the given solver
+    public double[] findRootsEven(RootSolver solver) {
         // the extrema points of the function are the roots of the derivative
-        double[] extremaPoints = this.calcDerivative().findRoots();
-        double root = 0; boolean existsRoot = false;
-        
-        boolean allPositive = true; boolean allNegative = true;
-        for (double x : extremaPoints) {
-            if (calcValue(x) > 0) {             // the extrema point is above the x axis
-                allNegative = false;
-            } else if (calcValue(x) < 0) {      // the extrema point is below the x axis
-                allPositive = false;
-            } else {                            // the extrema point is a root of the function
-                root = x; existsRoot = true;
-                break;
-            }
-        }
+        return findRootsEven(solver, this.calcDerivative().findRoots(solver));
+    }
 
-        // if a root was found amongst the extrema points
-        if (existsRoot)
-            return getRootsWhenExists(root);
-        
-        // check if there is a root to function according to the explanation above
-        boolean option1 = (coefficients[getDegree()] < 0 && allPositive);
-        boolean option2 = (coefficients[getDegree()] > 0 && allNegative);
-        existsRoot = option1 || option2 || (!allPositive && !allNegative);
-
-        // if there is a root, find it using Newton-Raphson and the other roots
-        if (existsRoot)
-            return getRootsWhenExists(newtonRaphson());
-        return new double[0];
+    // same as above, when the roots of the derivative (the extrema points) are already known
+    public double[] findRootsEven(RootSolver solver, double[] extremaPoints) {
+        double root = findRootEven(coefficients, getDegree(), solver, extremaPoints);
+        if (Double.isNaN(root))
+            return new double[0];
+        return getRootsWhenExists(root, solver);
     }
 
     // a method to find the roots of the function, using the relevant methods from above
     public double[] findRoots() {
+        return findRoots(DEFAULT_SOLVER);
+    }
+
+    // same as above, using the given solver to approximate every root
+    public double[] findRoots(RootSolver solver) {
         if (getDegree() == 0)
             return new double[0];
-        
-        if (getDegree() % 2 == 0)
-            return findRootsEven();
-        else
-            return findRootsOdd();
+
+        AnalysisEvents.FindRoots event = new AnalysisEvents.FindRoots();
+        event.begin();
+        double[] roots = (getDegree() % 2 == 0)? (findRootsEven(solver)):(findRootsOdd(solver));
+        event.commit(this, roots);
+        return roots;
+    }
+
+    /* same as above, when the roots of the derivative are already known.
+     * they are only needed for an even degree, so for an odd degree derivativeRoots is ignored.
+     */
+    public double[] findRoots(RootSolver solver, double[] derivativeRoots) {
+        if (getDegree() == 0)
+            return new double[0];
+
+        AnalysisEvents.FindRoots event = new AnalysisEvents.FindRoots();
+        event.begin();
+        double[] roots = (getDegree() % 2 == 0)? (findRootsEven(solver, derivativeRoots)):(findRootsOdd(solver));
+        event.commit(this, roots);
+        return roots;
     }
 
     // ______________________________________________________________________________________________________________
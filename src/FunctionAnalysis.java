@@ -5,12 +5,28 @@ import src.plotting.Graph;
 import src.plotting.PlotSettings;
 import src.swing.GraphApplication;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.awt.Color;
 
 
 public class FunctionAnalysis {
+    // from this degree on, the roots are found all at once with the Aberth-Ehrlich solver (unless chosen otherwise)
+    private static final int SIMULTANEOUS_ROOTS_DEGREE = 12;
+    // from this degree on, the stages of the analysis run at the same time (unless chosen otherwise)
+    private static final int CONCURRENT_STAGES_DEGREE = 12;
+    // the line before and after the report
+    private static final String SEPARATOR =
+            "\n----------------------------------------------------------------------------------------------\n\n";
+
 	private Function func;
+    private boolean simultaneousRoots, concurrentStages;
+    // the results of earlier analyses, null to always analyze the function again
+    private AnalysisCache cache;
 
     // the constructor of the class, initializes func using the first constructor of Function
 	public FunctionAnalysis() {
@@ -29,8 +45,52 @@ public class FunctionAnalysis {
         
         System.out.println("\n----------------------------------------------------------------------------------------------\n");
         this.func = new Function();
+        this.simultaneousRoots = func.getDegree() >= SIMULTANEOUS_ROOTS_DEGREE;
+        this.concurrentStages = func.getDegree() >= CONCURRENT_STAGES_DEGREE;
 	}
 
+    // the second constructor of the class, analyzes the given function without asking the user for anything
+    public FunctionAnalysis(Function func) {
+        this.func = func;
+        this.simultaneousRoots = func.getDegree() >= SIMULTANEOUS_ROOTS_DEGREE;
+        this.concurrentStages = func.getDegree() >= CONCURRENT_STAGES_DEGREE;
+    }
+
+    /* a method to choose how the roots are found: all at once with the Aberth-Ehrlich solver (true), or one at a
+     * time with Newton-Raphson and polynomial division (false). the default depends on the degree of the function.
+     */
+    public void setSimultaneousRoots(boolean simultaneousRoots) {
+        this.simultaneousRoots = simultaneousRoots;
+    }
+
+    public boolean isSimultaneousRoots() {
+        return simultaneousRoots;
+    }
+
+    /* a method to choose if the stages of the analysis (the roots, extrema points and inflection points) are
+     * calculated at the same time on the common pool (true), or one after the other on the calling thread (false).
+     * the report is printed in the same order either way.
+     */
+    public void setConcurrentStages(boolean concurrentStages) {
+        this.concurrentStages = concurrentStages;
+    }
+
+    public boolean isConcurrentStages() {
+        return concurrentStages;
+    }
+
+    /* a method to choose where analyze() looks for the result of an earlier analysis of the same function and keeps
+     * the new one, or null to analyze the function every time (the default). a cache keeps one result per function,
+     * whatever the settings that analyzed it were, so the analyses sharing a cache should use the same settings.
+     */
+    public void setCache(AnalysisCache cache) {
+        this.cache = cache;
+    }
+
+    public AnalysisCache getCache() {
+        return cache;
+    }
+
     // ______________________________________________________________________________________________________________
     // ______________________________________________________________________________________________________________
 
@@ -45,6 +105,11 @@ public class FunctionAnalysis {
         double y = Function.smartRound(func.calcValue(x));
         return "(" + getStringRepr(x) + ", " + getStringRepr(y) + ")";
 	}
+
+    // same as above, into out
+    public void appendPoint(Appendable out, double x) throws IOException {
+        TextFormat.appendPoint(out, x, Function.smartRound(func.calcValue(x)));
+    }
     
     /* a method to represent the positive/negative intervals of a function, where points contains the zero-points
      * of f(x) and signs contains the positivity/negativity of each interval.
@@ -102,51 +167,95 @@ public class FunctionAnalysis {
 
     // a method to print the intersection points of func with the axis
     public void axisIntersections(double[] intersectX) {
-        String intersectXMsg = "none";
-
-        // add the intersection points with the x axis to the string
-        if (intersectX.length != 0) {
-            String[] message = new String[intersectX.length];
-            for (int i = 0; i < intersectX.length; i++)
-                message[i] = "(" + getStringRepr(intersectX[i]) + ", 0)";
-            intersectXMsg = String.join(", ", message);
-        }
+        print(out -> axisIntersections(intersectX, out));
+    }
 
-        // this condition is equivalent to f(x) = 0
-        if (func.getDegree() == 0 && func.getCoefficient(0) == 0)
-            intersectXMsg = "all x";
+    // same as above, into out
+    public void axisIntersections(double[] intersectX, Appendable out) throws IOException {
+        out.append("\nIntersection points with the x axis: ");
+        if (func.getDegree() == 0 && func.getCoefficient(0) == 0) {     // this condition is equivalent to f(x) = 0
+            out.append("all x");
+        } else if (intersectX.length == 0) {
+            out.append("none");
+        } else {
+            for (int i = 0; i < intersectX.length; i++) {
+                if (i > 0) out.append(", ");
+                TextFormat.appendPoint(out, intersectX[i], 0);
+            }
+        }
 
-        System.out.println("\nIntersection points with the x axis: " + intersectXMsg);
-        System.out.println("Intersection point with the y axis: " + reprPoint(0));
+        out.append("\nIntersection point with the y axis: ");
+        appendPoint(out, 0);
+        out.append('\n');
     }
 
     // a method to get and print the positive and negative intervals of a function
     public void funcIntervals(Function f, double[] roots, String positiveMsg, String negativeMsg) {
-        int[] signs = f.calcIntervals(roots);
-        IntervalsReprHelper intervals = reprIntervals(roots, signs);
+        funcIntervals(f, roots, f.calcIntervals(roots), positiveMsg, negativeMsg);
+    }
 
-        // get the intervals representation
-        String positive = String.join(", ", intervals.positives);
-        String negative = String.join(", ", intervals.negatives);
+    // same as above, when the signs of the intervals are already known
+    public void funcIntervals(Function f, double[] roots, int[] signs, String positiveMsg, String negativeMsg) {
+        print(out -> funcIntervals(f, roots, signs, positiveMsg, negativeMsg, out));
+    }
 
+    // same as above, into out
+    public void funcIntervals(Function f, double[] roots, int[] signs, String positiveMsg, String negativeMsg,
+                              Appendable out) throws IOException {
         // if f(x) = 0 then it is not positive nor negative for all x
-        if (f.getDegree() == 0 && f.getCoefficient(0) == 0) {
-            positive = "no x"; negative = "no x";
+        boolean zero = (f.getDegree() == 0 && f.getCoefficient(0) == 0);
+
+        out.append('\n').append(positiveMsg).append(" intervals: ");
+        appendIntervals(out, roots, signs, 1, zero);
+        out.append('\n').append(negativeMsg).append(" intervals: ");
+        appendIntervals(out, roots, signs, -1, zero);
+        out.append('\n');
+    }
+
+    /* a method to write the intervals with the given sign (1 for positive, -1 for negative) separated by commas,
+     * the same intervals reprIntervals returns, or "none" if there are no such intervals
+     */
+    private void appendIntervals(Appendable out, double[] points, int[] signs, int sign, boolean zero)
+            throws IOException {
+        if (zero) {
+            out.append("no x");
+            return;
         }
 
-        // if there are no positive/negative intervals
-        if (positive.equals("")) positive = "none";
-        if (negative.equals("")) negative = "none";
+        // if points is empty then the function is a constant
+        if (points.length == 0) {
+            out.append(((signs[0] > 0) == (sign > 0))? ("all x"):("no x"));
+            return;
+        }
+
+        int written = 0;
+        for (int i = 0; i <= points.length; i++) {
+            if ((signs[i] > 0) != (sign > 0)) continue;
+            if (written++ > 0) out.append(", ");
 
-        // assemble the message print it
-        positive = positiveMsg + " intervals: " + positive;
-        negative = negativeMsg + " intervals: " + negative;
-        System.out.println("\n" + positive + "\n" + negative);
+            // check the interval type and write it accordingly
+            if (i == 0) {
+                out.append("x < ");
+                TextFormat.appendValue(out, points[i]);
+            } else if (i == points.length) {
+                out.append("x > ");
+                TextFormat.appendValue(out, points[i - 1]);
+            } else {
+                TextFormat.appendValue(out, points[i - 1]);
+                out.append(" < x < ");
+                TextFormat.appendValue(out, points[i]);
+            }
+        }
+        if (written == 0) out.append("none");
     }
     
     // a method to get the extrema points of a function, minimum or maximum
     public ExtremaPointsHelper extremaPoints(Function f) {
-        double[] roots = Function.modifyArray(f.findRoots());
+        return extremaPoints(f, Function.modifyArray(f.findRoots()));
+    }
+
+    // same as above, where roots are the (sorted, distinct) roots of f
+    public ExtremaPointsHelper extremaPoints(Function f, double[] roots) {
         double[] allPoints = new double[roots.length];
 
         double[] minPoints = new double[roots.length];
@@ -190,22 +299,56 @@ public class FunctionAnalysis {
 
     // a method to print the extrema points of a function
     public void printExtremaPoints(double[] extremaPoints, String pointMsg) {
-        String printMsg = "";
-        if (extremaPoints.length == 0) {
-            printMsg = "none";
-        } else {
-            String[] message = new String[extremaPoints.length];
-            for (int i = 0; i < message.length; i++)
-                message[i] = reprPoint(extremaPoints[i]);
-            printMsg = String.join(", ", message);
-        }
+        print(out -> printExtremaPoints(extremaPoints, pointMsg, out));
+    }
 
-        System.out.println(pointMsg + " points: " + printMsg);
+    // same as above, into out
+    public void printExtremaPoints(double[] extremaPoints, String pointMsg, Appendable out) throws IOException {
+        out.append(pointMsg).append(" points: ");
+        if (extremaPoints.length == 0)
+            out.append("none");
+        for (int i = 0; i < extremaPoints.length; i++) {
+            if (i > 0) out.append(", ");
+            appendPoint(out, extremaPoints[i]);
+        }
+        out.append('\n');
     }
 
     // ______________________________________________________________________________________________________________
     // ______________________________________________________________________________________________________________
 
+    /* a method to calculate the analysis of the function without printing it, see run() for the definitions.
+     * a function that was analyzed before is taken from the cache (see setCache), then nothing is calculated.
+     */
+    public AnalysisResult analyze() {
+        if (cache != null)
+            return cache.analyze(func, this);
+        return AnalysisEvents.stage("analysis", func, 0, this::analyzeStages);
+    }
+
+    // the stages of analyze(), each one is recorded as an event too (see AnalysisEvents)
+    private AnalysisResult analyzeStages() {
+        // every derivative and set of roots is calculated once and shared by the stages below
+        Executor executor = concurrentStages? ForkJoinPool.commonPool() : Runnable::run;
+        AnalysisContext context = new AnalysisContext(func, new NewtonRaphsonSolver(), simultaneousRoots, executor);
+        Function firstDer = context.getDerivative(1);
+        Function secondDer = context.getDerivative(2);
+
+        // start all the stages, each one as soon as the roots it needs are known (at once when not concurrent)
+        CompletableFuture<double[]> intersectXStage = context.getRootsAsync(0);
+        CompletableFuture<ExtremaPointsHelper> extremaStage =
+                context.getRootsAsync(1).thenApplyAsync(roots -> AnalysisEvents.stage("extrema", func, 1,
+                        () -> extremaPoints(firstDer, roots)), executor);
+        CompletableFuture<ExtremaPointsHelper> infPointsStage =
+                context.getRootsAsync(2).thenApplyAsync(roots -> AnalysisEvents.stage("inflection", func, 2,
+                        () -> extremaPoints(secondDer, roots)), executor);
+
+        ExtremaPointsHelper extrema = extremaStage.join();
+        ExtremaPointsHelper infPoints = infPointsStage.join();
+        return new AnalysisResult(func, firstDer, secondDer, intersectXStage.join(),
+                extrema.minPoints, extrema.maxPoints, infPoints.allPoints);
+    }
+
     /* the main method of this class, prints to user the information & analysis of the function.
      * This method uses the following definitions and rules:
      * 1. a minimum point is a point where f(x) goes from increasing to decreasing, which means f'(x) went from
@@ -217,50 +360,96 @@ public class FunctionAnalysis {
      * 4. inflection points of f(x) are the extrema points of f'(x).
      */
     public void run() {
-        System.out.println("\n----------------------------------------------------------------------------------------------\n");
-        System.out.println("The function: f(x) = " + func);
-		System.out.println("The domain of the function: all x");
+        print(this::writeHeader);
+
+        AnalysisResult result = analyze();
+        AnalysisEvents.stage("report", func, 0, () -> {
+            print(out -> writeAnalysis(result, out));
+            return result;
+        });
+        AnalysisEvents.stage("graph", func, 0, () -> new GraphApplication(graphFunction()));
+    }
 
-        // print axis intersections and positivity/negativity intervals
-        double [] intersectX = Function.modifyArray(func.findRoots());
-        axisIntersections(intersectX);
-        funcIntervals(func, intersectX, "Positivity", "Negativity");
+    /* a method to write the whole report of run() into out, for example into a buffered Writer when the reports of
+     * many functions are written one after the other (see BatchAnalysis.runReports). nothing in the report is
+     * built as a String first: the text, the functions and the numbers are written into out directly.
+     */
+    public void writeReport(AnalysisResult result, Appendable out) throws IOException {
+        writeHeader(out);
+        writeAnalysis(result, out);
+    }
+
+    // a method to write the function and its domain, the part of the report which does not need the analysis
+    private void writeHeader(Appendable out) throws IOException {
+        out.append(SEPARATOR);
+        out.append("The function: f(x) = ");
+        func.appendTo(out);
+        out.append("\nThe domain of the function: all x\n");
+    }
+
+    // a method to write the analysis of the function, the rest of the report
+    private void writeAnalysis(AnalysisResult result, Appendable out) throws IOException {
+        // axis intersections and positivity/negativity intervals
+        axisIntersections(result.getRoots(), out);
+        funcIntervals(func, result.getRoots(), result.getSigns(), "Positivity", "Negativity", out);
 
         // first derivative and extrema points
-        Function firstDer = func.calcDerivative();
-        ExtremaPointsHelper extrema = extremaPoints(firstDer);
-        System.out.println("\nFirst derivative: f'(x) = " + firstDer);
-        
-        // print extrema points and increasing/decreasing intervals
-        printExtremaPoints(extrema.minPoints, "Minimum");
-        printExtremaPoints(extrema.maxPoints, "Maximum");
-        funcIntervals(firstDer, extrema.allPoints, "Increasing", "Decreasing");
+        out.append("\nFirst derivative: f'(x) = ");
+        result.getFirstDerivative().appendTo(out);
+        out.append('\n');
+
+        // extrema points and increasing/decreasing intervals
+        printExtremaPoints(result.getMinPoints(), "Minimum", out);
+        printExtremaPoints(result.getMaxPoints(), "Maximum", out);
+        funcIntervals(result.getFirstDerivative(), result.getExtremaPoints(), result.getDerivativeSigns(),
+                "Increasing", "Decreasing", out);
 
         // second derivative and inflection points
-        Function secondDer = firstDer.calcDerivative();
-        ExtremaPointsHelper infPoints = extremaPoints(secondDer);
-        System.out.println("\nSecond derivative: f''(x) = " + secondDer);
+        out.append("\nSecond derivative: f''(x) = ");
+        result.getSecondDerivative().appendTo(out);
+        out.append('\n');
 
-        // print inflection points and concavity/convexity intervals
-        printExtremaPoints(infPoints.allPoints, "Inflection");
-        funcIntervals(secondDer, infPoints.allPoints, "Concavity", "Convexity");
+        // inflection points and concavity/convexity intervals
+        printExtremaPoints(result.getInflectionPoints(), "Inflection", out);
+        funcIntervals(result.getSecondDerivative(), result.getInflectionPoints(), result.getSecondDerivativeSigns(),
+                "Concavity", "Convexity", out);
 
-        System.out.println("\n----------------------------------------------------------------------------------------------\n");
-        
-        new GraphApplication(graphFunction());
+        out.append(SEPARATOR);
+    }
+
+    // a part of the report, written into an Appendable
+    interface Report {
+        void writeTo(Appendable out) throws IOException;
+    }
+
+    // a method to print a part of the report to the standard output, in one piece
+    private static void print(Report report) {
+        StringBuilder sb = new StringBuilder(512);
+        try {
+            report.writeTo(sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);      // a StringBuilder does not throw
+        }
+        System.out.print(sb);
     }
 
     // ______________________________________________________________________________________________________________
     // ______________________________________________________________________________________________________________
 
     public class funcToGraph extends ContinuousFunctionPlotter {
+        // the graph evaluates the function for every pixel in every frame, so it uses the compiled version
+        private final CompiledPolynomial compiled = func.compile();
 
         public String getName() {
             return "f(x)";
         }
 
         public double getY(double x) {
-            return func.calcValue(x);
+            return compiled.calcValue(x);
+        }
+
+        public void sampleInto(double[] xs, double[] ys, int count) {
+            compiled.calcValues(xs, ys, count);
         }
     }
 
@@ -2,9 +2,28 @@ package src;
 
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // analyze a file (or the standard input) of functions without a window, see BatchAnalysis
+        if (args.length > 0 && args[0].startsWith("--batch")) {
+            BatchAnalysis.main(args);
+            return;
+        }
+
+        // draw the graph of every function of a file into PNG files without a window, see BatchRender
+        if (args.length > 0 && args[0].equals("--render")) {
+            BatchRender.main(args);
+            return;
+        }
+
+        // answer analysis and graph requests over HTTP, see AnalysisServer
+        if (args.length > 0 && args[0].equals("--serve")) {
+            AnalysisServer.main(args);
+            return;
+        }
+
         // create a FunctionAnalysis object and run the analysis
         FunctionAnalysis funcAnalysis = new FunctionAnalysis();
+        funcAnalysis.setCache(AnalysisCache.getShared());
         funcAnalysis.run();
     }
 }
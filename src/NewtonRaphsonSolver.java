@@ -0,0 +1,153 @@
+package src;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/* a root solver using the Newton-Raphson technique.
+ * for a given function f(x) we can approximate a root of the function using the following recurrence relation:
+ * an+1 = an - f(an) / f'(an) where f'(x) is the derivative of f(x) and the initial term a0 is randomly chosen.
+ *
+ * the iteration stops as soon as the step |an+1 - an| is smaller than the tolerance (relative to |an| when |an| > 1).
+ * if the sequence diverges, hits a point where f'(an) = 0, falls into a cycle (an+1 = an-1) or does not converge
+ * within the iteration budget, the solver restarts from a new random point inside the bound of the roots.
+ */
+public class NewtonRaphsonSolver implements RootSolver {
+    public static final double DEFAULT_TOLERANCE = 1e-12;
+    public static final int DEFAULT_MAX_ITERATIONS = 1000;
+    public static final int DEFAULT_MAX_RESTARTS = 20;
+
+    private final double tolerance;
+    private final int maxIterations, maxRestarts;
+
+    // the first constructor of the class, uses the default tolerance and budgets
+    public NewtonRaphsonSolver() {
+        this(DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS, DEFAULT_MAX_RESTARTS);
+    }
+
+    // the second constructor of the class, maxIterations is the budget of every attempt (the first and each restart)
+    public NewtonRaphsonSolver(double tolerance, int maxIterations, int maxRestarts) {
+        if (tolerance <= 0 || maxIterations <= 0 || maxRestarts < 0)
+            throw new IllegalArgumentException("tolerance and maxIterations must be positive, maxRestarts non-negative");
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.maxRestarts = maxRestarts;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    public double findRoot(double[] coeffs, int degree) {
+        AnalysisEvents.NewtonRaphson event = new AnalysisEvents.NewtonRaphson();
+        event.begin();
+        Result result = solve(coeffs, degree);
+        event.commit(degree, result);
+        return result.getRoot();
+    }
+
+    /* a method to approximate a root and report how the approximation went.
+     * if no attempt converged, the result holds the point with the smallest |f(x)| seen along the way.
+     */
+    public Result solve(double[] coeffs, int degree) {
+        ThreadLocalRandom rand = ThreadLocalRandom.current();
+        double bound = rootBound(coeffs, degree);
+        double best = 0, bestResidual = Double.POSITIVE_INFINITY;
+        int iterations = 0;
+
+        for (int attempt = 0; attempt <= maxRestarts; attempt++) {
+            // the first start is the same as always, restarts are spread over the interval that contains all roots
+            double current = (attempt == 0)? ((rand.nextDouble() + 1) * 10):(rand.nextDouble(-bound, bound));
+            double previous = Double.NaN;
+            double divergenceLimit = 1e6 * (bound + Math.abs(current));
+
+            for (int i = 0; i < maxIterations; i++) {
+                iterations++;
+
+                // calculate f(x) and f'(x) together with Horner's rule
+                double value = coeffs[degree], derivative = 0;
+                for (int k = degree - 1; k >= 0; k--) {
+                    derivative = derivative * current + value;
+                    value = value * current + coeffs[k];
+                }
+
+                if (Math.abs(value) < bestResidual) {
+                    bestResidual = Math.abs(value); best = current;
+                }
+                if (value == 0)
+                    return new Result(current, iterations, attempt, true);
+                if (derivative == 0)                                // a horizontal tangent, can't continue from here
+                    break;
+
+                double next = current - value / derivative;
+                double scale = Math.max(1, Math.abs(next));
+                if (Double.isNaN(next) || Math.abs(next) > divergenceLimit)  // diverged
+                    break;
+                if (Math.abs(next - current) <= tolerance * scale)
+                    return new Result(next, iterations, attempt, true);
+                if (Math.abs(next - previous) <= tolerance * scale)    // jumping back and forth between two points
+                    break;
+
+                previous = current; current = next;
+            }
+        }
+
+        return new Result(best, iterations, maxRestarts, false);
+    }
+
+    // a method to get a bound on the roots (Cauchy's bound): every root x satisfies |x| < 1 + max|ai / an|
+    public static double rootBound(double[] coeffs, int degree) {
+        double max = 0;
+        for (int i = 0; i < degree; i++)
+            max = Math.max(max, Math.abs(coeffs[i] / coeffs[degree]));
+        return 1 + max;
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // the outcome of one call to solve
+    public static class Result {
+        private final double root;
+        private final int iterations, restarts;
+        private final boolean converged;
+
+        public Result(double root, int iterations, int restarts, boolean converged) {
+            this.root = root;
+            this.iterations = iterations;
+            this.restarts = restarts;
+            this.converged = converged;
+        }
+
+        // the approximated root
+        public double getRoot() {
+            return root;
+        }
+
+        // the number of iterations used, over all attempts
+        public int getIterations() {
+            return iterations;
+        }
+
+        // the number of times the solver started again from a new point
+        public int getRestarts() {
+            return restarts;
+        }
+
+        // false if the iteration budget ran out before the tolerance was reached
+        public boolean isConverged() {
+            return converged;
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package src;
+
+import src.plotting.ContinuousFunctionPlotter;
+
+
+/* a plotter for any polynomial function, for graphs that are not part of an analysis (see BatchRender).
+ * the function is evaluated with Horner's method directly, as every graph is only drawn once. for a graph that is
+ * drawn again and again, the compiled function of FunctionAnalysis.funcToGraph is faster.
+ */
+public class PolynomialPlotter extends ContinuousFunctionPlotter {
+    private final Function func;
+
+    // the constructor of the class
+    public PolynomialPlotter(Function func) {
+        this.func = func;
+    }
+
+    public String getName() {
+        return func.toString();
+    }
+
+    public double getY(double x) {
+        return func.calcValue(x);
+    }
+
+    public void sampleInto(double[] xs, double[] ys, int count) {
+        func.calcValues(xs, ys, count);
+    }
+}
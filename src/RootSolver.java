@@ -0,0 +1,15 @@
+package src;
+
+
+/* an interface for a technique that approximates one real root of a polynomial function.
+ * Function.findRoots uses the solver to find a root, divides the polynomial by (x - root) and repeats.
+ */
+public interface RootSolver {
+
+    /* a method to approximate a real root of the polynomial a0 + a1x + ... + anxⁿ, where coeffs[i] is the
+     * coefficient of xⁱ and n is the given degree (the array may be longer than degree + 1).
+     * the method is only called when the polynomial is known to have a real root.
+     */
+    public double findRoot(double[] coeffs, int degree);
+
+}
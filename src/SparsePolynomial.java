@@ -0,0 +1,411 @@
+package src;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/* a class for polynomial functions with a high degree but only a few terms, for example x^1000000 - 3x + 1.
+ * a Function keeps a coefficient for every power of x, so it would need an array of a million coefficients for this
+ * function, and every operation would go over all of them. here only the terms with a nonzero coefficient are kept,
+ * as pairs of an exponent and a coefficient (in two arrays, sorted by the exponent), so the cost of evaluating,
+ * deriving, formatting and finding the roots depends on the number of terms and not on the degree.
+ *
+ * the only exception is the division by (x - alpha): the quotient of x^n - 1 by (x - 1) is x^(n-1) + ... + x + 1, so
+ * in general the quotient has a term for every power of x below the degree. this is why the roots are not found by
+ * dividing the function by every root found, like Function.findRoots does, but by the recursion of findRoots.
+ */
+public class SparsePolynomial {
+    // a term of the text format: a sign, a coefficient, and x with an exponent, each part may be missing
+    private static final Pattern TERM =
+            Pattern.compile("\\s*([+-]?)\\s*(\\d+\\.?\\d*(?:[eE][+-]?\\d+)?|\\.\\d+(?:[eE][+-]?\\d+)?)?\\s*"
+                    + "(?:\\*?\\s*(x)(?:\\s*\\^\\s*(\\d+))?)?");
+
+    // the exponents of the terms from the lowest, and the coefficients of the terms (never 0)
+    private final int[] exponents;
+    private final double[] coefficients;
+
+    /* the first constructor of the class, gets the terms as pairs of an exponent and a coefficient (in any order).
+     * terms with the same exponent are added up, and terms with a coefficient of 0 are ignored.
+     * for example: ({1000000, 1, 0}, {1, -3, 1}) is f(x) = x^1000000 - 3x + 1
+     */
+    public SparsePolynomial(int[] exponents, double[] coeffs) {
+        if (exponents.length != coeffs.length)
+            throw new IllegalArgumentException("every exponent needs exactly one coefficient");
+
+        // sort the terms by the exponent
+        long[] order = new long[exponents.length];
+        for (int i = 0; i < exponents.length; i++) {
+            if (exponents[i] < 0)
+                throw new IllegalArgumentException("negative exponent " + exponents[i]);
+            order[i] = ((long) exponents[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        // add up the terms with the same exponent and leave out the zeros
+        int[] e = new int[order.length];
+        double[] c = new double[order.length];
+        int terms = 0;
+        for (int i = 0; i < order.length; ) {
+            int exponent = (int) (order[i] >>> 32);
+            double sum = 0;
+            for (; i < order.length && (int) (order[i] >>> 32) == exponent; i++)
+                sum += coeffs[(int) order[i]];
+            if (sum != 0) {
+                e[terms] = exponent;
+                c[terms++] = sum;
+            }
+        }
+        this.exponents = Arrays.copyOf(e, terms);
+        this.coefficients = Arrays.copyOf(c, terms);
+    }
+
+    // the second constructor of the class, gets the terms already sorted and without zeros (not copied)
+    private SparsePolynomial(int[] exponents, double[] coeffs, int terms) {
+        this.exponents = (terms == exponents.length)? (exponents):(Arrays.copyOf(exponents, terms));
+        this.coefficients = (terms == coeffs.length)? (coeffs):(Arrays.copyOf(coeffs, terms));
+    }
+
+    // a method to get the same function as a Function
+    public static SparsePolynomial of(Function f) {
+        double[] coeffs = new double[f.getDegree() + 1];
+        for (int i = 0; i < coeffs.length; i++)
+            coeffs[i] = f.getCoefficient(i);
+        return fromCoefficients(coeffs, f.getDegree());
+    }
+
+    // a method to create the function from the coefficients coeffs[0..degree], in the same order as in Function
+    private static SparsePolynomial fromCoefficients(double[] coeffs, int degree) {
+        int terms = 0;
+        for (int i = 0; i <= degree; i++)
+            if (coeffs[i] != 0) terms++;
+
+        int[] e = new int[terms];
+        double[] c = new double[terms];
+        terms = 0;
+        for (int i = 0; i <= degree; i++) {
+            if (coeffs[i] != 0) {
+                e[terms] = i;
+                c[terms++] = coeffs[i];
+            }
+        }
+        return new SparsePolynomial(e, c, terms);
+    }
+
+    /* a method to create a function from a line of text in the same format as toString, for example
+     * "x^1000000 - 3x + 1" or "2.5x^40 + x^3 - 7". the terms may be in any order, and a term may also be written
+     * like "2*x^3" or "-x".
+     */
+    public static SparsePolynomial parse(String line) {
+        int[] e = new int[4];
+        double[] c = new double[4];
+        int terms = 0;
+
+        Matcher matcher = TERM.matcher(line);
+        int position = 0;
+        while (true) {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position)))
+                position++;
+            if (position == line.length())
+                break;
+
+            // every term but the first needs a sign, and a term needs a coefficient or x
+            matcher.region(position, line.length());
+            if (!matcher.lookingAt() || (matcher.group(2) == null && matcher.group(3) == null)
+                    || (terms > 0 && matcher.group(1).isEmpty()))
+                throw new NumberFormatException(
+                        "can't read \"" + line.substring(position) + "\" in \"" + line + "\"");
+
+            double coeff = (matcher.group(2) == null)? (1):(Double.parseDouble(matcher.group(2)));
+            int exponent = (matcher.group(3) == null)? (0):
+                    ((matcher.group(4) == null)? (1):(Integer.parseInt(matcher.group(4))));
+
+            if (terms == e.length) {
+                e = Arrays.copyOf(e, terms * 2);
+                c = Arrays.copyOf(c, terms * 2);
+            }
+            e[terms] = exponent;
+            c[terms++] = matcher.group(1).equals("-")? (-coeff):(coeff);
+            position = matcher.end();
+        }
+
+        if (terms == 0)
+            throw new NumberFormatException("no terms in \"" + line + "\"");
+        return new SparsePolynomial(Arrays.copyOf(e, terms), Arrays.copyOf(c, terms));
+    }
+
+    // a method to get the same function as a Function, with a coefficient for every power of x up to the degree
+    public Function toFunction() {
+        double[] coeffs = new double[getDegree() + 1];
+        for (int i = 0; i < exponents.length; i++)
+            coeffs[exponents[i]] = coefficients[i];
+        return new Function(coeffs);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    // a method to get the degree of the polynomial function (0 for f(x) = 0)
+    public int getDegree() {
+        return (exponents.length == 0)? (0):(exponents[exponents.length - 1]);
+    }
+
+    // a method to get the number of terms with a nonzero coefficient
+    public int getTermCount() {
+        return exponents.length;
+    }
+
+    // a method to get the exponent of the i-th term, from the lowest
+    public int getExponent(int i) {
+        return exponents[i];
+    }
+
+    // a method to get the coefficient of xⁱ in the function
+    public double getCoefficient(int i) {
+        int index = Arrays.binarySearch(exponents, i);
+        return (index < 0)? (0):(coefficients[index]);
+    }
+
+    // representation of the function, printed user-friendly with the same rules as Function.toString
+    public String toString() {
+        StringBuilder repr = new StringBuilder(16 * exponents.length + 1);
+        try {
+            appendTo(repr);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);      // a StringBuilder does not throw
+        }
+        return repr.toString();
+    }
+
+    // a method to write the representation of the function into out, see Function.appendTo
+    public void appendTo(Appendable out) throws IOException {
+        if (exponents.length == 0) {
+            out.append('0');
+            return;
+        }
+        if (getDegree() == 0) {
+            TextFormat.appendConstant(out, coefficients[0]);
+            return;
+        }
+
+        for (int t = exponents.length - 1; t >= 0; t--)
+            TextFormat.appendTerm(out, coefficients[t], exponents[t], t == exponents.length - 1);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* a method to calculate f(x) for a given x, using Horner's rule on the terms instead of on all the coefficients.
+     * between two terms the value is multiplied by the power of x of the gap between their exponents:
+     * x^1000000 - 3x + 1 = (x^999999 - 3)x + 1, and x^999999 is found by exponentiation by squaring (see power),
+     * so the cost is about log(degree) multiplications per term.
+     */
+    public double calcValue(double x) {
+        if (exponents.length == 0)
+            return 0;
+
+        int last = exponents.length - 1;
+        double result = coefficients[last];
+        for (int t = last - 1; t >= 0; t--)
+            result = result * power(x, exponents[t + 1] - exponents[t]) + coefficients[t];
+        return result * power(x, exponents[0]);
+    }
+
+    // a method to calculate f(x) for the first count values of xs and write the results into out
+    public void calcValues(double[] xs, double[] out, int count) {
+        for (int i = 0; i < count; i++)
+            out[i] = calcValue(xs[i]);
+    }
+
+    /* a method to calculate xⁿ by exponentiation by squaring: x^13 = x^8 * x^4 * x, where x^2, x^4, x^8 are found
+     * by squaring the previous one, so it needs about 2 * log2(n) multiplications instead of n.
+     */
+    public static double power(double x, int n) {
+        double result = 1;
+        while (n > 0) {
+            if ((n & 1) != 0)
+                result *= x;
+            n >>>= 1;
+            if (n > 0)
+                x *= x;
+        }
+        return result;
+    }
+
+    /* a method to get the derivative of the function, which has the same terms with lower exponents, except for
+     * the constant. unlike Function.calcDerivative the coefficients are not rounded, as they can be very large
+     */
+    public SparsePolynomial calcDerivative() {
+        int first = (exponents.length > 0 && exponents[0] == 0)? (1):(0);
+        int terms = exponents.length - first;
+        int[] e = new int[terms];
+        double[] c = new double[terms];
+        for (int t = 0; t < terms; t++) {
+            e[t] = exponents[first + t] - 1;
+            c[t] = (double) exponents[first + t] * coefficients[first + t];
+        }
+        return new SparsePolynomial(e, c, terms);
+    }
+
+    /* a method to compute the division of f(x) by the factor (x - alpha), ignoring the remainder (like
+     * Function.polynomialDivision). the quotient has a term for every power of x up to the degree - 1 (see above),
+     * unless alpha is 0, so this needs time and memory for every power of x. only the division by x keeps the terms.
+     */
+    public SparsePolynomial polynomialDivision(double alpha) {
+        int degree = getDegree();
+        if (degree == 0)
+            return new SparsePolynomial(new int[0], new double[0], 0);
+
+        // dividing by x only lowers the exponents (the constant is the remainder)
+        if (alpha == 0) {
+            int first = (exponents[0] == 0)? (1):(0);
+            int terms = exponents.length - first;
+            int[] e = new int[terms];
+            for (int t = 0; t < terms; t++)
+                e[t] = exponents[first + t] - 1;
+            return new SparsePolynomial(e, Arrays.copyOfRange(coefficients, first, exponents.length), terms);
+        }
+
+        // long division from the leading coefficient, like Deflation.divideForward, reading the terms as it goes
+        double[] quotient = new double[degree];
+        double carry = 0;
+        int t = exponents.length - 1;
+        for (int k = degree; k >= 1; k--) {
+            if (t >= 0 && exponents[t] == k)
+                carry += coefficients[t--];
+            quotient[k - 1] = carry;
+            carry *= alpha;
+        }
+        return fromCoefficients(quotient, degree - 1);
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* a method to find all the real roots of the function, sorted from the smallest.
+     * a function with t terms has at most t - 1 positive roots, as many negative roots, and maybe the root 0
+     * (by Descartes' rule of signs), so there are few roots to find even when the degree is very high.
+     * the positive roots are found by positiveRoots, and the negative roots are the positive roots of f(-x).
+     */
+    public double[] findRoots() {
+        if (getDegree() == 0)
+            return new double[0];
+
+        AnalysisEvents.FindRoots event = new AnalysisEvents.FindRoots();
+        event.begin();
+
+        // f(x) = xᵏ * g(x) where g(0) is not 0, so 0 is a root if k > 0 and the other roots are the roots of g
+        SparsePolynomial g = withoutZeroRoots();
+        double[] positive = g.positiveRoots();
+        double[] negative = g.reflected().positiveRoots();
+
+        boolean zero = exponents[0] > 0;
+        double[] roots = new double[negative.length + ((zero)? (1):(0)) + positive.length];
+        int count = 0;
+        for (int i = negative.length - 1; i >= 0; i--)
+            roots[count++] = -negative[i];
+        if (zero)
+            roots[count++] = 0;
+        for (double root : positive)
+            roots[count++] = root;
+
+        event.commit(this, getDegree(), roots);
+        return roots;
+    }
+
+    /* a method to find the positive roots of the function, sorted, when f(0) is not 0.
+     * by Rolle's theorem there is at most one root between two roots of the derivative, and the function is monotone
+     * there, so the roots of the derivative split (0, bound) into intervals in which a root is found by bisection if
+     * the function changes its sign. the derivative has one term less (the constant), and after dividing it by its
+     * lowest power of x it has a constant again, so the recursion goes down one term at every level.
+     * the number of sign changes of the coefficients is a bound on the number of positive roots (Descartes), which
+     * stops the recursion early: with no sign change there is no root, and with one there is exactly one.
+     */
+    private double[] positiveRoots() {
+        int changes = signChanges();
+        if (changes == 0)
+            return new double[0];
+
+        double bound = rootBound();
+        if (changes == 1)
+            return new double[] {bisect(0, bound)};
+
+        // the extrema points of the function, and the edges of the interval
+        double[] extrema = calcDerivative().withoutZeroRoots().positiveRoots();
+        double[] points = new double[extrema.length + 2];
+        System.arraycopy(extrema, 0, points, 1, extrema.length);
+        points[points.length - 1] = Math.max(bound, (extrema.length > 0)? (extrema[extrema.length - 1]):(0));
+
+        double[] roots = new double[changes];
+        int count = 0;
+        double previous = coefficients[0];      // f(0)
+        for (int i = 1; i < points.length && count < roots.length; i++) {
+            double value = (i == points.length - 1)? (coefficients[coefficients.length - 1]):(calcValue(points[i]));
+            if (value == 0)                                     // an extrema point is a root
+                roots[count++] = points[i];
+            else if (previous != 0 && (previous > 0) != (value > 0))
+                roots[count++] = bisect(points[i - 1], points[i]);
+            previous = value;
+        }
+        return Arrays.copyOf(roots, count);
+    }
+
+    /* a method to approximate the root in (low, high) where f changes its sign, by halving the interval until it
+     * can't be halved in double precision any more. the values may overflow to infinity for a high degree, but
+     * only their signs are used
+     */
+    private double bisect(double low, double high) {
+        boolean lowPositive = calcValue(low) > 0;
+        while (true) {
+            double middle = low + (high - low) / 2;
+            if (middle <= low || middle >= high)
+                return middle;
+
+            double value = calcValue(middle);
+            if (value == 0)
+                return middle;
+            if ((value > 0) == lowPositive)
+                low = middle;
+            else
+                high = middle;
+        }
+    }
+
+    // a method to get the number of sign changes between consecutive coefficients (Descartes' rule of signs)
+    private int signChanges() {
+        int changes = 0;
+        for (int t = 1; t < coefficients.length; t++)
+            if ((coefficients[t] > 0) != (coefficients[t - 1] > 0)) changes++;
+        return changes;
+    }
+
+    // a method to get a bound on the roots (Cauchy's bound, see NewtonRaphsonSolver.rootBound)
+    private double rootBound() {
+        double leading = coefficients[coefficients.length - 1];
+        double max = 0;
+        for (int t = 0; t < coefficients.length - 1; t++)
+            max = Math.max(max, Math.abs(coefficients[t] / leading));
+        return 1 + max;
+    }
+
+    // a method to divide the function by the highest power of x that divides it, so the constant is not 0
+    private SparsePolynomial withoutZeroRoots() {
+        if (exponents.length == 0 || exponents[0] == 0)
+            return this;
+        int[] e = new int[exponents.length];
+        for (int t = 0; t < e.length; t++)
+            e[t] = exponents[t] - exponents[0];
+        return new SparsePolynomial(e, coefficients, e.length);
+    }
+
+    // a method to get f(-x), which has the opposite sign for the terms with an odd exponent
+    private SparsePolynomial reflected() {
+        double[] c = new double[coefficients.length];
+        for (int t = 0; t < c.length; t++)
+            c[t] = (exponents[t] % 2 == 0)? (coefficients[t]):(-coefficients[t]);
+        return new SparsePolynomial(exponents, c, c.length);
+    }
+
+}
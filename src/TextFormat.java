@@ -0,0 +1,84 @@
+package src;
+
+import java.io.IOException;
+
+
+/* a class to write the text of the analysis (functions, numbers and points) into any Appendable, like a
+ * StringBuilder or a buffered Writer, without creating a String for every part of the text.
+ * the numbers are formatted into a buffer of the current thread which is used again for every number, and then
+ * copied into the output, so writing a number does not allocate anything.
+ */
+public final class TextFormat {
+    // the buffer every number is formatted into before it is written, one for every thread
+    private static final ThreadLocal<StringBuilder> NUMBER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    private TextFormat() {
+    }
+
+    // ______________________________________________________________________________________________________________
+    // ______________________________________________________________________________________________________________
+
+    /* a method to write a value smart-rounded (see Function.smartRound), and without ".0" when it is an integer.
+     * for example: 2.0 is written as "2", 1.33333 as "1.333" and -0.99999 as "-1"
+     */
+    public static void appendValue(Appendable out, double x) throws IOException {
+        appendRounded(out, Function.smartRound(x));
+    }
+
+    // same as above, for a value which is already rounded
+    private static void appendRounded(Appendable out, double x) throws IOException {
+        StringBuilder number = NUMBER.get();
+        number.setLength(0);
+        if (x == Math.round(x))
+            number.append(Math.round(x));
+        else
+            number.append(x);
+        out.append(number);
+    }
+
+    // a method to write the point (x, y), both smart-rounded
+    public static void appendPoint(Appendable out, double x, double y) throws IOException {
+        out.append('(');
+        appendValue(out, x);
+        out.append(", ");
+        appendValue(out, y);
+        out.append(')');
+    }
+
+    /* a method to write one term of a polynomial function, like "- 3x^2". the coefficient is written without its
+     * sign, the sign is written before it: without spaces for the first term (like "-3x^2") and with spaces for the
+     * other terms (like " - 3x^2"). a coefficient of 1 is not written (like "x^2"), except for the constant.
+     * see Function.toString for the examples.
+     */
+    public static void appendTerm(Appendable out, double coefficient, int exponent, boolean first)
+            throws IOException {
+        if (first)
+            out.append((coefficient > 0)? (""):("-"));
+        else
+            out.append((coefficient > 0)? (" + "):(" - "));
+
+        double coeff = Function.smartRound(Math.abs(coefficient));
+        if (coeff != 1 || exponent == 0)
+            appendRounded(out, coeff);
+
+        if (exponent == 1) {
+            out.append('x');
+        } else if (exponent > 1) {
+            out.append("x^");
+            StringBuilder number = NUMBER.get();
+            number.setLength(0);
+            out.append(number.append(exponent));
+        }
+    }
+
+    // a method to write a constant function, like "5" or "0.5"
+    public static void appendConstant(Appendable out, double constant) throws IOException {
+        StringBuilder number = NUMBER.get();
+        number.setLength(0);
+        if (constant == Math.round(constant))
+            number.append(Math.round(constant));
+        else
+            number.append(Function.smartRound(constant));
+        out.append(number);
+    }
+}
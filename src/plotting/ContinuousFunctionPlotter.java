@@ -4,37 +4,200 @@ import java.awt.*;
 
 
 public abstract class ContinuousFunctionPlotter extends Plotter {
+
+    // The curve is first sampled every COARSE_STEP pixels, then refined only where it is needed
+    protected static final int COARSE_STEP = 8;
+
+    // An interval is split when its midpoint is further than this (in pixels) from the straight line between its ends
+    protected static final double MAX_DEVIATION = 0.5;
+
+    // Intervals are never split below 1 / 2^MAX_DEPTH of the coarse step
+    protected static final int MAX_DEPTH = 6;
+
+    // The most samples taken for one frame, as a multiple of the chart width
+    protected static final int MAX_SAMPLES_PER_PIXEL = 4;
+
+    // The trace of plot, reused by every frame drawn on the thread
+    private static final ThreadLocal<Trace> PLOT_TRACE = ThreadLocal.withInitial(Trace::new);
+
     public abstract double getY(double x);
 
+    /**
+     * Evaluates the function for a whole row of x values at once: ys[i] = getY(xs[i]).
+     * Subclasses that can evaluate many points faster than one getY call per point should override this.
+     *
+     * @param xs The x values to evaluate
+     * @param ys The array which receives the y values, at least as long as xs
+     */
+    public void sampleInto(double[] xs, double[] ys) {
+        sampleInto(xs, ys, xs.length);
+    }
+
+    // Same as above, for the first count values of xs only. This is the method subclasses should override
+    public void sampleInto(double[] xs, double[] ys, int count) {
+        for (int i = 0; i < count; i++) ys[i] = getY(xs[i]);
+    }
+
+    // Plots the function on its own, see sample for how the curve is worked out
     public void plot(Graph graph, Graphics g, int chartWidth, int chartHeight) {
+        Trace trace = PLOT_TRACE.get();
+        trace.clear();
+        if (sample(graph, g.getClipBounds(), chartWidth, chartHeight, trace)) trace.draw(g);
+    }
 
-        // Record the last two points. Plotting works by drawing lines between consecutive points. This ensures there are no gaps.
-        double prevX = 0, prevY = 0;
+    /**
+     * Samples the function adaptively. The curve is sampled on a coarse grid first, and each interval of the grid
+     * is split in two only where the curve bends (the midpoint is far from the straight line between the ends) or
+     * crosses the edge of the chart. Flat parts of the curve cost a fraction of a sample per pixel, while steep parts
+     * are refined below one pixel. Every segment is clipped at the top and bottom of the chart.
+     *
+     * Only the part of the chart inside the clip is sampled, so redrawing a thin strip of the chart costs about as
+     * much as the strip. The coarse grid is fixed to the X axis (not to the edge of the chart), so after panning by
+     * whole pixels the curve is sampled at the same points as before.
+     *
+     * The plotter keeps no state of its own, so it can be sampled on many threads at once.
+     */
+    public boolean sample(Graph graph, Rectangle clip, int chartWidth, int chartHeight, Trace trace) {
 
-        // Flag to make sure the first point is not drawn (there is not previous point to connect the dots to)
-        boolean first = true;
+        if (chartWidth <= 0) return true;
 
-        double xRange = graph.plotSettings.getRangeX();
+        // The state and buffers of sampling are kept in the trace, so every frame uses them again
+        if (!(trace.plotterState instanceof Sampling)) trace.plotterState = new Sampling();
+        Sampling s = ((Sampling) trace.plotterState).reset(graph, trace);
+        try {
+            sample(s, clip, chartWidth, chartHeight);
+        } finally {
+            s.reset(null, null);    // don't keep the graph
+        }
+        return true;
+    }
 
-        // Plot for every pixel going across the chart
-        for (int ax = 0; ax < chartWidth; ax++) {
+    // Samples the function into the trace of s, see above
+    private void sample(Sampling s, Rectangle clip, int chartWidth, int chartHeight) {
+        Graph graph = s.graph;
+        Trace trace = s.trace;
+        PlotSettings settings = graph.plotSettings;
+        int firstAx = 0, lastAx = chartWidth;
 
-            // figure out what X is
-            double x = graph.plotSettings.getMinX() + ((ax / (double) chartWidth) * xRange);
+        // Restrict the sampling to the columns and rows which can actually be painted
+        if (clip != null) {
+            firstAx = Math.max(firstAx, clip.x - settings.marginLeft - 1);
+            lastAx = Math.min(lastAx, clip.x + clip.width - settings.marginLeft + 1);
+            int bottomRow = chartHeight + settings.marginTop;
+            s.viewMinY = Math.max(s.viewMinY, settings.getMinY() + graph.getPlotHeight(bottomRow - (clip.y + clip.height) - 1));
+            s.viewMaxY = Math.min(s.viewMaxY, settings.getMinY() + graph.getPlotHeight(bottomRow - clip.y + 1));
+            if (firstAx >= lastAx || s.viewMinY > s.viewMaxY) return;
+        }
 
-            // For this value of X, get the value of Y (via the abstract method)
-            double y = getY(x);
+        int coarseCount = (lastAx - firstAx) / COARSE_STEP + 3;   // the grid columns and both edges
+        if (s.sampleXs.length < coarseCount) {
+            s.sampleXs = new double[coarseCount];
+            s.sampleYs = new double[coarseCount];
+        }
+        double[] sampleXs = s.sampleXs, sampleYs = s.sampleYs;
 
-            // Draw a line between two points
-            if (!first && y <= graph.plotSettings.getMaxY() && y >= graph.plotSettings.getMinY()) graph.drawLine(g, prevX, prevY, x, y);
+        // The first grid column after firstAx, counting the columns from X = 0
+        long origin = Math.round(graph.getActualWidth(settings.getMinX()));
+        int ax = firstAx + COARSE_STEP - (int) Math.floorMod(firstAx + origin, (long) COARSE_STEP);
 
-            // Remember the last two values
-            prevX = x; prevY = y;
+        // Work out the value of X for every coarse column, starting and ending at the edges of the sampled area
+        int count = 0;
+        sampleXs[count++] = settings.getMinX() + graph.getPlotWidth(firstAx);
+        for (; ax < lastAx; ax += COARSE_STEP)
+            sampleXs[count++] = settings.getMinX() + graph.getPlotWidth(ax);
+        sampleXs[count++] = settings.getMinX() + graph.getPlotWidth(lastAx);
 
-            // To stop the first point being drawn
-            first = false;
+        // Get all the coarse values of Y in one go
+        sampleInto(sampleXs, sampleYs, count);
+        trace.addSamples(count);
+        s.samplesLeft = (lastAx - firstAx) * MAX_SAMPLES_PER_PIXEL;
+
+        // Plotting works by drawing lines between consecutive points. This ensures there are no gaps.
+        for (int i = 1; i < count; i++) {
+            if ((i & 63) == 0 && graph.isCancelled()) break;   // the frame was cancelled
+            refine(s, sampleXs[i - 1], sampleYs[i - 1], sampleXs[i], sampleYs[i], 0);
         }
+        trace.addSamples((lastAx - firstAx) * MAX_SAMPLES_PER_PIXEL - s.samplesLeft);
+    }
+
+    // Adds the curve between two samples to the trace, splitting the interval while it is not straight enough
+    private void refine(Sampling s, double x0, double y0, double x1, double y1, int depth) {
+        if (depth < MAX_DEPTH && s.samplesLeft > 0) {
+            double xm = (x0 + x1) / 2;
+            double ym = getY(xm);
+            s.samplesLeft--;
+
+            boolean bends = !(s.graph.getActualHeight(Math.abs(ym - (y0 + y1) / 2)) <= MAX_DEVIATION);
+            boolean allAbove = y0 > s.viewMaxY && ym > s.viewMaxY && y1 > s.viewMaxY;
+            boolean allBelow = y0 < s.viewMinY && ym < s.viewMinY && y1 < s.viewMinY;
+            boolean crossesEdge = isInside(y0, s.minY, s.maxY) != isInside(y1, s.minY, s.maxY);
 
+            // A curve which stays off the painted area is not refined any further, unless it bends: a narrow peak
+            // or dip may reach into the painted area between the samples
+            if ((allAbove || allBelow) && !bends) return;
+
+            if (bends || crossesEdge) {
+                refine(s, x0, y0, xm, ym, depth + 1);
+                refine(s, xm, ym, x1, y1, depth + 1);
+                return;
+            }
+        }
+
+        addClipped(s, x0, y0, x1, y1);
+    }
+
+    private static boolean isInside(double y, double minY, double maxY) {
+        return y >= minY && y <= maxY;
+    }
+
+    // Adds the part of the line between two points that is between the top and the bottom of the chart
+    private static void addClipped(Sampling s, double x0, double y0, double x1, double y1) {
+        if (!Double.isFinite(y0) || !Double.isFinite(y1)) return;
+
+        double tMin = 0, tMax = 1;
+        double dy = y1 - y0;
+        if (dy == 0) {
+            if (!isInside(y0, s.minY, s.maxY)) return;
+        } else {
+            double tA = (s.minY - y0) / dy, tB = (s.maxY - y0) / dy;
+            tMin = Math.max(0, Math.min(tA, tB));
+            tMax = Math.min(1, Math.max(tA, tB));
+            if (tMin > tMax) return;
+        }
+
+        double dx = x1 - x0;
+        Graph graph = s.graph;
+        s.trace.addSegment(graph.getPlotX(x0 + tMin * dx), graph.getPlotY(y0 + tMin * dy),
+                graph.getPlotX(x0 + tMax * dx), graph.getPlotY(y0 + tMax * dy));
+    }
+
+    // The state of sampling the function once. One per trace, set up again for every call to sample
+    private static final class Sampling {
+        Graph graph;
+        Trace trace;
+
+        // The range of Y values of the chart
+        double minY, maxY;
+
+        // The range of Y values which can be painted (the chart, or less when clipped)
+        double viewMinY, viewMaxY;
+
+        // How many more samples may be taken
+        int samplesLeft;
+
+        // The coarse samples
+        double[] sampleXs = new double[0], sampleYs = new double[0];
+
+        Sampling reset(Graph graph, Trace trace) {
+            this.graph = graph;
+            this.trace = trace;
+            if (graph != null) {
+                minY = viewMinY = graph.plotSettings.getMinY();
+                maxY = viewMaxY = graph.plotSettings.getMaxY();
+            }
+            samplesLeft = 0;
+            return this;
+        }
     }
 
 }
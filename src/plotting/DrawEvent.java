@@ -0,0 +1,79 @@
+package src.plotting;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.awt.Graphics;
+
+
+/**
+ * The Java Flight Recorder event of one call to Graph.draw, with the viewport and the work of the plotters, so a
+ * slow frame can be matched with the view that caused it. When the event is not enabled in a recording it costs a
+ * check of a flag, and the fields are only filled in when the event is going to be recorded.
+ */
+@Name("functionanalysis.GraphDraw")
+@Label("Graph Draw")
+@Description("Drawing a graph, or the part of it inside the clip of the graphics context")
+@Category({"Function Analysis", "Graph"})
+@StackTrace(false)
+public class DrawEvent extends Event {
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Min X")
+    double minX;
+
+    @Label("Max X")
+    double maxX;
+
+    @Label("Min Y")
+    double minY;
+
+    @Label("Max Y")
+    double maxY;
+
+    @Label("Clipped")
+    @Description("Whether only part of the graph was drawn")
+    boolean clipped;
+
+    @Label("Plotters")
+    int plotters;
+
+    @Label("Samples")
+    @Description("How many times the plotters evaluated their functions")
+    long samples;
+
+    @Label("Draw Calls")
+    int drawCalls;
+
+    @Label("Cancelled")
+    boolean cancelled;
+
+    // Records the event, after the graph was drawn
+    void commit(Graph graph, Graphics g, int width, int height, boolean cancelled) {
+        end();
+        if (shouldCommit()) {
+            PlotSettings settings = graph.plotSettings;
+            this.width = width;
+            this.height = height;
+            this.minX = settings.getMinX();
+            this.maxX = settings.getMaxX();
+            this.minY = settings.getMinY();
+            this.maxY = settings.getMaxY();
+            this.clipped = g.getClipBounds() != null;
+            this.plotters = graph.functions.size();
+            this.samples = graph.frameSamples;
+            this.drawCalls = graph.frameDrawCalls;
+            this.cancelled = cancelled;
+            commit();
+        }
+    }
+}
@@ -2,21 +2,25 @@ package src.plotting;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RecursiveTask;
 
 
 public class Graph {
     public static final String VERSION = "Function Graph of f(x)";
 
-    // A graph may plot as many functions as it wants. These may all be of different types
-    public Vector<Plotter> functions;
+    // A graph may plot as many functions as it wants. These may all be of different types. The list may be changed
+    // while the graph is being drawn, a frame draws the plotters that were in the list when it started
+    public CopyOnWriteArrayList<Plotter> functions;
 
     // The area and general settings of the graph are all defined by a PlotArea object
     public PlotSettings plotSettings;
 
     // Initialises the graph with the plot settings to use
     public Graph(PlotSettings p) {
-        this.functions = new Vector<Plotter>(5);
+        this.functions = new CopyOnWriteArrayList<Plotter>();
         this.plotSettings = p;
     }
 
@@ -27,6 +31,34 @@ public class Graph {
 
     protected double unitsPerPixelX, unitsPerPixelY;
 
+    // The transform from values to pixels, worked out once per frame: pixel = value * pixelsPerUnit - origin
+    protected double pixelsPerUnitX, pixelsPerUnitY, originX, originY;
+
+    // The samples are taken at whole pixels, which the transform gives back a tiny bit above or below the pixel. This
+    // much is added before rounding down, so a point is in the same pixel whatever the rounding of the view was
+    // (otherwise a panned view, whose range has changed in its last bits, puts parts of the curves one pixel off)
+    protected static final double PIXEL_TOLERANCE = 1e-6;
+
+    // The polyline being built by drawSegment, in pixels. The buffers grow when needed and are reused every frame
+    protected final Trace polyline = new Trace();
+
+    // One trace per plotter, filled in parallel and then drawn in order. Reused every frame
+    protected final ArrayList<Trace> traces = new ArrayList<Trace>();
+
+    // The plotters of the frame being drawn, reused every frame, and the tasks sampling them in this frame
+    protected Plotter[] plotterBuffer = new Plotter[8];
+    protected final ArrayList<SampleTask> sampleTasks = new ArrayList<SampleTask>();
+
+    // The thread drawing the current frame, interrupting it cancels the sampling of the plotters too
+    protected volatile Thread drawingThread;
+
+    // Collects the time and the work of the frames while it is set, see RenderStats
+    protected volatile RenderStats stats;
+
+    // The samples and draw calls of the plotters in the current call to draw (see DrawEvent)
+    protected long frameSamples;
+    protected int frameDrawCalls;
+
     /**
      * Draws the graph using a graphics object.
      * Note, X axis labels come from the first function (this only applies to discrete functions)
@@ -34,8 +66,29 @@ public class Graph {
      * @param g      The graphics context on which to draw
      * @param width  The width to make the graph
      * @param height The height to make the graph
+     * @return False if the drawing was cancelled before it was finished (see isCancelled)
      */
-    public void draw(Graphics g, int width, int height) {
+    public boolean draw(Graphics g, int width, int height) {
+        DrawEvent event = new DrawEvent();
+        event.begin();
+        RenderStats stats = this.stats;
+        if (stats != null) stats.beginFrame();
+
+        boolean finished = false;
+        try {
+            finished = drawGraph(g, width, height);
+        } finally {
+            if (stats != null) {
+                if (finished) stats.endFrame();
+                else stats.cancelFrame();
+            }
+            event.commit(this, g, width, height, !finished);
+        }
+        return finished;
+    }
+
+    // Draws the graph, see draw. Returns false if it was cancelled
+    protected boolean drawGraph(Graphics g, int width, int height) {
 
         // Draw the title
         if (plotSettings.title != null) {
@@ -65,9 +118,19 @@ public class Graph {
         unitsPerPixelX = plotRangeX / chartWidth;
         unitsPerPixelY = plotRangeY / chartHeight;
 
+        // Work out the transform from values to pixels, so converting a point needs no divisions
+        pixelsPerUnitX = chartWidth / plotRangeX;
+        pixelsPerUnitY = chartHeight / plotRangeY;
+        originX = plotSettings.minX * pixelsPerUnitX - plotSettings.marginLeft;
+        originY = plotSettings.minY * pixelsPerUnitY;
+        polyline.clear();
+        drawingThread = Thread.currentThread();
+        frameSamples = 0;
+        frameDrawCalls = 0;
+
         // Set the background colour
         g.setColor(plotSettings.backgroundColor);
-        g.fillRect(plotSettings.marginLeft, plotSettings.marginTop, chartWidth - 1, chartHeight - 1);
+        g.fillRect(plotSettings.marginLeft, plotSettings.marginTop, chartWidth, chartHeight);
 
         // Draw a box around the whole graph to delimit the Axes
         g.setColor(plotSettings.axisColor);
@@ -83,20 +146,126 @@ public class Graph {
             g.drawLine(xEqualsZero, plotSettings.marginTop, xEqualsZero, plotSettings.marginTop + chartHeight);
 
         // And finally - draw the results of the function onto the chart
-        for (int i = 0; i < functions.size(); i++) {
-            Plotter function = functions.elementAt(i);
-            g.setColor(plotSettings.getPlotColor());
-            function.plot(this, g, chartWidth, chartHeight);
+        return plotFunctions(g);
+
+    }
+
+    /**
+     * Draws all the plotters. They are sampled at the same time on the fork-join pool first (the first one on this
+     * thread), then drawn one after the other in the order of the list, each as soon as its trace is ready.
+     * Plotters that can't be sampled in advance are plotted on this thread when their turn comes.
+     *
+     * An interrupted thread stops early, the frame is not needed any more (see FrameRenderer). The sampling in
+     * progress is cancelled too and waited for, so the traces are free for the next frame.
+     *
+     * @return False if the plotters were not all drawn because the frame was cancelled
+     */
+    protected boolean plotFunctions(Graphics g) {
+        Plotter[] plotters = functions.toArray(plotterBuffer);
+        if (plotters != plotterBuffer) plotterBuffer = plotters;    // the buffer was too small
+        int count = 0;
+        while (count < plotters.length && plotters[count] != null) count++;
+        if (count == 0) return true;
+
+        while (traces.size() < count) traces.add(new Trace());
+        while (sampleTasks.size() < count) sampleTasks.add(null);
+        Rectangle clip = g.getClipBounds();
+
+        // A new task every frame, a task must not be forked again while it may still be in a work queue
+        for (int i = 1; i < count; i++) {
+            Trace trace = traces.get(i);
+            trace.clear();
+            SampleTask task = new SampleTask(this, plotters[i], clip, trace);
+            sampleTasks.set(i, task);
+            task.fork();
+        }
+
+        try {
+            for (int i = 0; i < count; i++) {
+                Trace trace = traces.get(i);
+                boolean sampled;
+                if (i == 0) {
+                    trace.clear();
+                    sampled = plotters[0].sample(this, clip, chartWidth, chartHeight, trace);
+                } else {
+                    sampled = sampleTasks.get(i).join();
+                }
+                // A plotter which saw the cancel stopped sampling early, so its trace is not the whole curve
+                if (isCancelled()) return false;
+
+                Color color = plotters[i].getColor();
+                g.setColor(color != null ? color : plotSettings.getPlotColor());
+                int calls;
+                if (sampled) {
+                    calls = trace.draw(g);
+                } else {
+                    plotters[i].plot(this, g, chartWidth, chartHeight);
+                    calls = flushPolyline(g);
+                }
+
+                long samples = sampled ? trace.getSamples() : 0;
+                frameSamples += samples;
+                frameDrawCalls += calls;
+
+                RenderStats stats = this.stats;
+                if (stats != null) stats.addPlotter(i, plotters[i].getName(), samples, calls);
+            }
+            return true;
+        } finally {
+            // Not cancelled: a task that is already running would go on using its trace after the cancel. The
+            // plotters see the interrupt and stop early, so waiting for them is short
+            for (int i = 1; i < count; i++) {
+                sampleTasks.get(i).quietlyJoin();
+                sampleTasks.set(i, null);
+            }
+            Arrays.fill(plotters, 0, count, null);
         }
+    }
+
+    /**
+     * Samples one plotter into its trace on the fork-join pool. A task is only used for one frame: the trace and
+     * the sampling state it uses are the graph's, which are reused every frame
+     */
+    protected static final class SampleTask extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        protected final transient Graph graph;
+        protected final transient Plotter plotter;
+        protected final transient Rectangle clip;
+        protected final transient Trace trace;
+
+        protected SampleTask(Graph graph, Plotter plotter, Rectangle clip, Trace trace) {
+            this.graph = graph;
+            this.plotter = plotter;
+            this.clip = clip;
+            this.trace = trace;
+        }
+
+        protected Boolean compute() {
+            return plotter.sample(graph, clip, graph.chartWidth, graph.chartHeight, trace);
+        }
+    }
+
+    public RenderStats getStats() {
+        return stats;
+    }
 
+    // Starts collecting statistics about the frames into stats, or stops when it is null
+    public void setStats(RenderStats stats) {
+        this.stats = stats;
     }
 
+    // Whether the frame being drawn is not needed any more. Plotters check this while they are sampled
+    public boolean isCancelled() {
+        Thread thread = drawingThread;
+        return thread != null && thread.isInterrupted();
+    }
 
     // Uses the numeric value of Y (as returned by a function) and figures out which pixel on screen this relates to
     public int getPlotY(double y) {
 
         // Convert Y into pixel coordinates again
-        int pixelY = ((int) ((y - plotSettings.minY) / unitsPerPixelY));
+        int pixelY = ((int) (y * pixelsPerUnitY - originY + PIXEL_TOLERANCE));
 
         // We also need to flip the Y axis because Y is counted from the top and not the bottom. Add the various borders
         return ((chartHeight - pixelY) + plotSettings.marginTop);
@@ -104,7 +273,7 @@ public class Graph {
 
     // Uses the numeric value of X, and figures out which pixel on the screen this relates to
     public int getPlotX(double x) {
-        return (int) (((x - plotSettings.minX) / unitsPerPixelX) + plotSettings.marginLeft);
+        return (int) (x * pixelsPerUnitX - originX + PIXEL_TOLERANCE);
     }
 
     // Takes a numeric distance and calculates how many actual pixels high that is
@@ -144,7 +313,30 @@ public class Graph {
     public void drawLine(Graphics g, double x1, double y1, double x2, double y2) {
         g.drawLine(getPlotX(x1), getPlotY(y1), getPlotX(x2), getPlotY(y2));
     }
-    
+
+    /**
+     * Plots a line between two sets of values as part of a polyline. When the line starts where the previous one
+     * ended, it is only added to the polyline, so a whole curve is drawn with one drawPolyline call. Otherwise a new
+     * polyline is started. The polylines are drawn by flushPolyline, which the graph calls after every plotter that
+     * draws itself with plot.
+     *
+     * @param g  Graphics context upon which to write
+     * @param x1 First point X
+     * @param y1 First point Y
+     * @param x2 Second point X
+     * @param y2 Second point Y
+     */
+    public void drawSegment(Graphics g, double x1, double y1, double x2, double y2) {
+        polyline.addSegment(getPlotX(x1), getPlotY(y1), getPlotX(x2), getPlotY(y2));
+    }
+
+    // Draws the polylines built by drawSegment (if there are any) and starts new ones, returns the number of calls
+    public int flushPolyline(Graphics g) {
+        int calls = polyline.draw(g);
+        polyline.clear();
+        return calls;
+    }
+
 
    // Returns the graph as an image so that it can be saved
     public BufferedImage getImage(int width, int height) {
@@ -0,0 +1,115 @@
+package src.plotting;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+
+/**
+ * Saves graphs of any size as PNG files without drawing the whole image at once. The image is cut into bands of
+ * BAND_HEIGHT rows, and each band into tiles of TILE_WIDTH columns. The tiles of a band are drawn at the same time
+ * on the fork-join pool, each by its own copy of the graph, and the rows of the band are then streamed to the PNG
+ * encoder while the next band is being drawn. So the memory needed is about two bands, whatever the height.
+ *
+ * Each tile is only a clip of the whole graph, and the plotters only sample the part of the curve inside the clip,
+ * so drawing all the tiles costs about as much as drawing the image in one go.
+ */
+public class ImageExporter {
+
+    public static final int TILE_WIDTH = 512;
+
+    public static final int BAND_HEIGHT = 256;
+
+    /**
+     * Saves the graph as a PNG file
+     *
+     * @param graph  The graph to save. It is copied first, so it may be changed or drawn while it is being saved
+     * @param width  The width of the image
+     * @param height The height of the image
+     * @param file   The file to write
+     */
+    public static void writePng(Graph graph, int width, int height, File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            writePng(graph, width, height, out);
+        }
+    }
+
+    // Same as above, to a stream which is not closed
+    public static void writePng(Graph graph, int width, int height, OutputStream out) throws IOException {
+        PlotSettings settings = graph.plotSettings.copy();
+        List<Plotter> plotters = new ArrayList<Plotter>(graph.functions);
+        try (PngEncoder encoder = new PngEncoder(out, width, height)) {
+            int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+
+            CompletableFuture<int[]> next = drawBandAsync(settings, plotters, width, height, 0);
+            for (int band = 0; band < bands; band++) {
+                int[] pixels = next.join();
+
+                // Draw the next band while this one is compressed
+                if (band + 1 < bands) next = drawBandAsync(settings, plotters, width, height, band + 1);
+
+                int rows = Math.min(BAND_HEIGHT, height - band * BAND_HEIGHT);
+                encoder.writeRows(pixels, 0, width, rows);
+            }
+            encoder.finish();
+        }
+    }
+
+    private static CompletableFuture<int[]> drawBandAsync(PlotSettings settings, List<Plotter> plotters,
+                                                          int width, int height, int band) {
+        return CompletableFuture.supplyAsync(() -> drawBand(settings, plotters, width, height, band),
+                ForkJoinPool.commonPool());
+    }
+
+    // Draws all the tiles of one band in parallel, and returns the pixels of the band row by row
+    private static int[] drawBand(PlotSettings settings, List<Plotter> plotters, int width, int height, int band) {
+        int top = band * BAND_HEIGHT;
+        int rows = Math.min(BAND_HEIGHT, height - top);
+        int[] pixels = new int[width * rows];
+
+        List<ForkJoinTask<?>> tiles = new ArrayList<ForkJoinTask<?>>();
+        for (int left = 0; left < width; left += TILE_WIDTH) {
+            Rectangle area = new Rectangle(left, top, Math.min(TILE_WIDTH, width - left), rows);
+            tiles.add(ForkJoinTask.adapt(() -> drawTile(settings, plotters, width, height, area, pixels)));
+        }
+        ForkJoinTask.invokeAll(tiles);
+        return pixels;
+    }
+
+    // Draws one tile of the graph, and copies it into the pixels of its band
+    private static void drawTile(PlotSettings settings, List<Plotter> plotters, int width, int height,
+                                 Rectangle area, int[] pixels) {
+        BufferedImage tile = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_RGB);
+
+        // Every tile has its own graph, as drawing a graph changes its state (and sometimes its settings)
+        Graph graph = new Graph(settings.copy());
+        graph.functions.addAll(plotters);
+
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.translate(-area.x, -area.y);
+            g.setClip(area);
+            g.setColor(settings.backgroundColor);
+            g.fillRect(area.x, area.y, area.width, area.height);
+            graph.draw(g, width, height);
+        } finally {
+            g.dispose();
+        }
+
+        int[] data = ((DataBufferInt) tile.getRaster().getDataBuffer()).getData();
+        for (int row = 0; row < area.height; row++) {
+            System.arraycopy(data, row * area.width, pixels, row * width + area.x, area.width);
+        }
+    }
+
+}
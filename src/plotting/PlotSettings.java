@@ -6,7 +6,7 @@ import java.io.Serializable;
 import java.awt.*;
 
 
-public class PlotSettings implements Serializable {
+public class PlotSettings implements Serializable, Cloneable {
 
     // Area Parameters
     protected double minX = -5, maxX = 5, minY = -5, maxY = 5;
@@ -68,6 +68,15 @@ public class PlotSettings implements Serializable {
        this.maxY = yMax;
     }
 
+    // Returns a copy of these settings, so they can be used on another thread while the original keeps changing
+    public PlotSettings copy() {
+        try {
+            return (PlotSettings) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     // Gets the minimum X value for plotting
     public double getMinX() {
         return minX;
@@ -5,8 +5,37 @@ import java.awt.*;
 
 public abstract class Plotter {
 
+    // The color of this plotter, or null to use the plot color of the graph
+    protected volatile Color color;
+
     public abstract String getName();
 
     public abstract void plot(Graph p, Graphics g, int chartWidth, int chartHeight);
 
+    /**
+     * Samples the plotter into a trace without drawing anything, so that many plotters can be sampled at the same
+     * time on different threads (see Graph.draw). It may only read from the graph, and must not keep any state
+     * between calls, as the same plotter can be sampled for different graphs at the same time.
+     *
+     * Plotters which can't be sampled in advance return false and are drawn with plot instead.
+     *
+     * @param graph       The graph to sample for, its transform is ready to use
+     * @param clip        The area of the image which will be painted, or null for all of it
+     * @param chartWidth  The width of the chart in pixels
+     * @param chartHeight The height of the chart in pixels
+     * @param trace       The empty trace to fill
+     * @return Whether the plotter filled the trace
+     */
+    public boolean sample(Graph graph, Rectangle clip, int chartWidth, int chartHeight, Trace trace) {
+        return false;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public void setColor(Color color) {
+        this.color = color;
+    }
+
 }
@@ -0,0 +1,165 @@
+package src.plotting;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+
+/**
+ * Writes an RGB image as a PNG file one row at a time, so the whole image never has to be in memory. The rows are
+ * given as packed RGB ints (the format of BufferedImage.TYPE_INT_RGB), filtered with the Sub filter and compressed
+ * into IDAT chunks as they come.
+ *
+ * The rows must be written from the top to the bottom, exactly height of them, followed by a call to finish. The
+ * encoder holds native memory for the compression until it is closed, so it should be used in a try-with-resources
+ * block, which also frees it when writing fails.
+ */
+public class PngEncoder implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = {(byte) 137, 'P', 'N', 'G', '\r', '\n', 26, '\n'};
+
+    // The size of the IDAT chunks
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int FILTER_SUB = 1;
+
+    private final DataOutputStream out;
+    private final int width, height;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+
+    // One filtered row (the filter type and 3 bytes per pixel), and the compressed data waiting to be written
+    private final byte[] row;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private int chunkLength, rowsWritten;
+
+    /**
+     * Writes the header of the image
+     *
+     * @param out    The stream to write the file to, it is not closed by the encoder
+     * @param width  The width of the image in pixels
+     * @param height The height of the image in pixels
+     */
+    public PngEncoder(OutputStream out, int width, int height) throws IOException {
+        this(out, width, height, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Writes the header of the image
+     *
+     * @param out         The stream to write the file to, it is not closed by the encoder
+     * @param width       The width of the image in pixels
+     * @param height      The height of the image in pixels
+     * @param compression The compression level, from Deflater.BEST_SPEED to Deflater.BEST_COMPRESSION
+     */
+    public PngEncoder(OutputStream out, int width, int height, int compression) throws IOException {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Bad image size: " + width + "x" + height);
+        this.out = new DataOutputStream(out);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + width * 3];
+        this.deflater = new Deflater(compression);
+
+        try {
+            writeHeader();
+        } catch (IOException | RuntimeException e) {
+            deflater.end();
+            throw e;
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        out.write(SIGNATURE);
+
+        byte[] header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8;      // bits per sample
+        header[9] = 2;      // truecolor
+        header[10] = 0;     // deflate
+        header[11] = 0;     // adaptive filtering
+        header[12] = 0;     // no interlace
+        writeChunk("IHDR", header, header.length);
+    }
+
+    /**
+     * Adds rows to the image
+     *
+     * @param rgb      The pixels, packed RGB
+     * @param offset   Where the first row starts in rgb
+     * @param scanline The distance between the starts of two rows in rgb
+     * @param rows     How many rows to add
+     */
+    public void writeRows(int[] rgb, int offset, int scanline, int rows) throws IOException {
+        if (rowsWritten + rows > height) throw new IllegalStateException("More rows than the height of the image");
+
+        for (int r = 0; r < rows; r++) {
+            int start = offset + r * scanline;
+            row[0] = FILTER_SUB;
+
+            // Each byte is stored as the difference from the same byte of the pixel on the left
+            int previous = 0;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                int pixel = rgb[start + x];
+                row[i] = (byte) ((pixel >> 16) - (previous >> 16));
+                row[i + 1] = (byte) ((pixel >> 8) - (previous >> 8));
+                row[i + 2] = (byte) (pixel - previous);
+                previous = pixel;
+            }
+
+            deflater.setInput(row);
+            while (!deflater.needsInput()) deflate();
+        }
+        rowsWritten += rows;
+    }
+
+    // Writes the rest of the compressed data and the end of the file
+    public void finish() throws IOException {
+        if (rowsWritten != height) throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows were written");
+
+        deflater.finish();
+        while (!deflater.finished()) deflate();
+        if (chunkLength > 0) writeChunk("IDAT", chunk, chunkLength);
+
+        writeChunk("IEND", chunk, 0);
+        out.flush();
+    }
+
+    // Frees the memory of the compression. The stream is not closed, and an unfinished image is left as it is
+    public void close() {
+        deflater.end();
+    }
+
+    // Compresses as much as fits in the chunk, and writes the chunk when it is full
+    private void deflate() throws IOException {
+        chunkLength += deflater.deflate(chunk, chunkLength, chunk.length - chunkLength);
+        if (chunkLength == chunk.length) {
+            writeChunk("IDAT", chunk, chunkLength);
+            chunkLength = 0;
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] b, int offset, int value) {
+        b[offset] = (byte) (value >>> 24);
+        b[offset + 1] = (byte) (value >>> 16);
+        b[offset + 2] = (byte) (value >>> 8);
+        b[offset + 3] = (byte) value;
+    }
+
+}
@@ -0,0 +1,157 @@
+package src.plotting;
+
+import java.util.Arrays;
+
+
+/**
+ * Collects how long the frames of a graph take and how much work they do, over the last WINDOW frames. A graph
+ * only reports to it while it is set with Graph.setStats, so a graph without one does no extra work at all.
+ *
+ * A frame starts with beginFrame and ends with endFrame (or cancelFrame when it was not finished). Frames may be
+ * nested: Graph.draw always begins and ends a frame, and a caller that draws one frame with several calls to draw
+ * (like FrameRenderer when panning) begins and ends the frame around them, so they count as one frame.
+ *
+ * The graph reports from the thread that draws it and a panel reads from the event dispatch thread, so every method
+ * is synchronized. That is a few locks per frame, and only while the statistics are being collected.
+ */
+public class RenderStats {
+
+    // The number of frames the averages are taken over
+    public static final int WINDOW = 60;
+
+    // The duration and the end time of the latest frames, in nanoseconds
+    protected final long[] durations = new long[WINDOW];
+    protected final long[] ends = new long[WINDOW];
+    protected int frames, next;
+
+    // The frame in progress
+    protected int depth;
+    protected long start;
+    protected int drawCalls;
+    protected String[] names = new String[4];
+    protected long[] samples = new long[4];
+    protected int plotters;
+
+    // The latest finished frame
+    protected long lastDuration;
+    protected int lastDrawCalls;
+    protected String[] lastNames = new String[0];
+    protected long[] lastSamples = new long[0];
+
+    // What getSnapshot returned last, until the next frame is finished
+    protected Snapshot latest;
+
+    public synchronized void beginFrame() {
+        if (depth++ == 0) {
+            start = System.nanoTime();
+            drawCalls = 0;
+            plotters = 0;
+        }
+    }
+
+    public synchronized void endFrame() {
+        if (depth == 0 || --depth > 0) return;
+
+        long end = System.nanoTime();
+        durations[next] = end - start;
+        ends[next] = end;
+        next = (next + 1) % WINDOW;
+        frames = Math.min(frames + 1, WINDOW);
+        latest = null;
+        lastDuration = end - start;
+        lastDrawCalls = drawCalls;
+        lastNames = Arrays.copyOf(names, plotters);
+        lastSamples = Arrays.copyOf(samples, plotters);
+    }
+
+    // Ends a frame which was not finished, it is not counted
+    public synchronized void cancelFrame() {
+        if (depth > 0) depth--;
+    }
+
+    /**
+     * Adds the work of a plotter to the frame in progress. A plotter drawn more than once in a frame adds up
+     *
+     * @param index     The position of the plotter in the graph
+     * @param name      The name of the plotter
+     * @param samples   How many times the plotter evaluated its function
+     * @param drawCalls How many calls to the graphics context it made
+     */
+    public synchronized void addPlotter(int index, String name, long samples, int drawCalls) {
+        if (depth == 0) return;
+        if (index >= this.samples.length) {
+            int length = Math.max(index + 1, this.samples.length * 2);
+            this.names = Arrays.copyOf(this.names, length);
+            this.samples = Arrays.copyOf(this.samples, length);
+        }
+        while (plotters <= index) {
+            this.names[plotters] = null;
+            this.samples[plotters] = 0;
+            plotters++;
+        }
+        this.names[index] = name;
+        this.samples[index] += samples;
+        this.drawCalls += drawCalls;
+    }
+
+    // The latest finished frame and the averages of the window
+    public synchronized Snapshot getSnapshot() {
+        if (latest == null) {
+            long total = 0;
+            for (int i = 0; i < frames; i++) total += durations[i];
+
+            // The frames per second over the window, from the end of the oldest frame to the end of the newest
+            double perSecond = 0;
+            if (frames > 1) {
+                long newest = ends[(next + WINDOW - 1) % WINDOW];
+                long oldest = ends[(next + WINDOW - frames) % WINDOW];
+                if (newest > oldest) perSecond = (frames - 1) * 1e9 / (newest - oldest);
+            }
+
+            latest = new Snapshot(lastDuration / 1e6, total / 1e6 / Math.max(frames, 1), perSecond, lastDrawCalls,
+                    lastNames, lastSamples);
+        }
+        return latest;
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // The statistics at one moment
+    public static class Snapshot {
+
+        // The time of the latest frame and the average time of the window, in milliseconds
+        public final double frameMillis, averageFrameMillis;
+
+        public final double framesPerSecond;
+
+        // The calls to the graphics context made by the plotters in the latest frame
+        public final int drawCalls;
+
+        // The names of the plotters of the latest frame, and how many times each evaluated its function
+        protected final String[] names;
+        protected final long[] samples;
+
+        protected Snapshot(double frameMillis, double averageFrameMillis, double framesPerSecond, int drawCalls,
+                           String[] names, long[] samples) {
+            this.frameMillis = frameMillis;
+            this.averageFrameMillis = averageFrameMillis;
+            this.framesPerSecond = framesPerSecond;
+            this.drawCalls = drawCalls;
+            this.names = names;
+            this.samples = samples;
+        }
+
+        public int getPlotterCount() {
+            return names.length;
+        }
+
+        public String getPlotterName(int i) {
+            return names[i];
+        }
+
+        public long getSamples(int i) {
+            return samples[i];
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package src.plotting;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Keeps the latest tiles of TilePyramids, addressed by (generation, zoom, tileX, tileY). The generation tells the
+ * pyramids apart, so a tile a discarded pyramid finishes late is never painted by the pyramid that replaced it. When there are more tiles than the
+ * cache may hold, the tile that was not used for the longest time is removed first (least recently used). Every
+ * tile is TILE_SIZE x TILE_SIZE pixels, so the memory of the cache is about maxTiles * TILE_SIZE² * 4 bytes.
+ *
+ * The tiles are added by the threads that render them and read by the thread that paints them, so every method
+ * is synchronized.
+ */
+public class TileCache {
+
+    protected final int maxTiles;
+
+    protected final LinkedHashMap<Key, BufferedImage> tiles;
+
+    protected long hits, misses;
+
+    public TileCache(int maxTiles) {
+        if (maxTiles <= 0) throw new IllegalArgumentException("the cache must hold at least one tile");
+        this.maxTiles = maxTiles;
+        this.tiles = new LinkedHashMap<Key, BufferedImage>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+                return size() > TileCache.this.maxTiles;
+            }
+        };
+    }
+
+    // Returns the tile, or null if it is not in the cache
+    public synchronized BufferedImage get(Key key) {
+        BufferedImage tile = tiles.get(key);
+        if (tile != null) hits++;
+        else misses++;
+        return tile;
+    }
+
+    public synchronized void put(Key key, BufferedImage tile) {
+        tiles.put(key, tile);
+    }
+
+    public synchronized boolean contains(Key key) {
+        return tiles.containsKey(key);
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    public int getMaxTiles() {
+        return maxTiles;
+    }
+
+    // The number of calls to get that found a tile, and that did not
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // The address of a tile: the pyramid it belongs to, its zoom level and its column and row at that level
+    public static final class Key {
+        public final int generation, zoom, tileX, tileY;
+
+        public Key(int generation, int zoom, int tileX, int tileY) {
+            this.generation = generation;
+            this.zoom = zoom;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return generation == key.generation && zoom == key.zoom && tileX == key.tileX && tileY == key.tileY;
+        }
+
+        public int hashCode() {
+            return ((generation * 31 + zoom) * 31 + tileX) * 31 + tileY;
+        }
+
+        public String toString() {
+            return generation + ":" + zoom + "/" + tileX + "/" + tileY;
+        }
+    }
+
+}
@@ -0,0 +1,265 @@
+package src.plotting;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Draws a graph from fixed-size tiles, like a map. The tiles are fixed to the axes, not to the view: at zoom level
+ * z one pixel is getUnitsPerPixelX(z) by getUnitsPerPixelY(z) units, and tile (z, tileX, tileY) is the square of
+ * TILE_SIZE pixels whose top left corner is tileX * TILE_SIZE pixels right of X = 0 and tileY * TILE_SIZE pixels
+ * below Y = 0. Every LEVELS_PER_OCTAVE levels up the pixels are half as big, so zooming in by one level magnifies
+ * the graph by 2^(1 / LEVELS_PER_OCTAVE).
+ *
+ * The tiles are kept in a TileCache, so a view that was panned or zoomed back to a level that was seen before is
+ * painted from the tiles already drawn, and only the tiles which came into view are drawn. Those are drawn in
+ * parallel on the executor, each with its own copy of the graph, while the tiles in the cache are painted at once.
+ *
+ * A pyramid draws the plotters and settings it was made with. When they change, cancel it and make a new pyramid.
+ * Every pyramid has its own generation in the keys of its tiles, so pyramids can share a cache, and the tiles of a
+ * cancelled pyramid which were being drawn are thrown away.
+ */
+public class TilePyramid {
+
+    public static final int TILE_SIZE = 256;
+
+    public static final int LEVELS_PER_OCTAVE = 4;
+
+    // How far the scale of a view may be from the scale of a level to still be drawn from its tiles
+    protected static final double SCALE_TOLERANCE = 1e-9;
+
+    private static final AtomicInteger NEXT_GENERATION = new AtomicInteger();
+
+    protected final PlotSettings settings;
+    protected final List<Plotter> plotters;
+
+    // The size of a pixel at level 0
+    protected final double baseUnitsPerPixelX, baseUnitsPerPixelY;
+
+    protected final TileCache cache;
+    protected final Executor executor;
+
+    // Tells the tiles of this pyramid apart from the tiles of the others in the cache
+    protected final int generation = NEXT_GENERATION.getAndIncrement();
+
+    // Set by cancel, the tiles still waiting are skipped and the ones being drawn are not put in the cache
+    protected volatile boolean cancelled;
+
+    // The tiles being drawn, so a tile is only drawn once at a time
+    protected final Set<TileCache.Key> pending = ConcurrentHashMap.newKeySet();
+
+    // The tiles the latest call to paint needed. A tile which is not needed any more when its turn comes is skipped
+    protected volatile Set<TileCache.Key> wanted = new HashSet<TileCache.Key>();
+
+    /**
+     * @param graph  The graph to draw. Its settings and plotters are copied
+     * @param width  The width of the view the graph is drawn in. The scale of this view is level 0
+     * @param height The height of the view
+     * @param cache    The cache for the tiles, which may be shared with other pyramids
+     * @param executor Draws the tiles which are not in the cache
+     */
+    public TilePyramid(Graph graph, int width, int height, TileCache cache, Executor executor) {
+        PlotSettings p = graph.plotSettings;
+        this.settings = p.copy();
+        this.plotters = new ArrayList<Plotter>(graph.functions);
+        this.baseUnitsPerPixelX = p.getRangeX() / (width - (p.getMarginLeft() + p.getMarginRight()));
+        this.baseUnitsPerPixelY = p.getRangeY() / (height - (p.getMarginTop() + p.getMarginBottom()));
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    public double getUnitsPerPixelX(int zoom) {
+        return baseUnitsPerPixelX * Math.pow(2, -zoom / (double) LEVELS_PER_OCTAVE);
+    }
+
+    public double getUnitsPerPixelY(int zoom) {
+        return baseUnitsPerPixelY * Math.pow(2, -zoom / (double) LEVELS_PER_OCTAVE);
+    }
+
+    /**
+     * Finds the zoom level of a view
+     *
+     * @return The level, or Integer.MIN_VALUE if the scale of the view is not the scale of any level (then the view
+     * can't be drawn from tiles)
+     */
+    public int getZoom(PlotSettings view, int width, int height) {
+        int chartWidth = width - (view.getMarginLeft() + view.getMarginRight());
+        int chartHeight = height - (view.getMarginTop() + view.getMarginBottom());
+        if (chartWidth <= 0 || chartHeight <= 0) return Integer.MIN_VALUE;
+
+        double unitsPerPixelX = view.getRangeX() / chartWidth;
+        double unitsPerPixelY = view.getRangeY() / chartHeight;
+        double levels = Math.log(baseUnitsPerPixelX / unitsPerPixelX) / Math.log(2) * LEVELS_PER_OCTAVE;
+        if (Double.isNaN(levels) || Math.abs(levels) > 1000) return Integer.MIN_VALUE;
+
+        int zoom = (int) Math.round(levels);
+        if (Math.abs(unitsPerPixelX / getUnitsPerPixelX(zoom) - 1) > SCALE_TOLERANCE) return Integer.MIN_VALUE;
+        if (Math.abs(unitsPerPixelY / getUnitsPerPixelY(zoom) - 1) > SCALE_TOLERANCE) return Integer.MIN_VALUE;
+        return zoom;
+    }
+
+    /**
+     * Returns a tile from the cache, or draws it on this thread if it is not there (for headless use)
+     */
+    public BufferedImage getTile(int zoom, int tileX, int tileY) {
+        TileCache.Key key = new TileCache.Key(generation, zoom, tileX, tileY);
+        BufferedImage tile = cache.get(key);
+        if (tile == null) {
+            tile = drawTile(key);
+            cache.put(key, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * Paints a view of the graph from tiles: the tiles in the cache are painted at once, and the others are drawn
+     * on the executor (their place is left empty until then). The box around the chart is painted too.
+     *
+     * @param g           The graphics context to paint on
+     * @param view        The area of the graph to show, at the scale of one of the levels
+     * @param width       The width of the view
+     * @param height      The height of the view
+     * @param onTileReady Called on the thread that drew a missing tile, when it is in the cache. May be null
+     * @return The number of tiles which were not in the cache, or -1 if the view is not at the scale of any level
+     * (then nothing was painted)
+     */
+    public int paint(Graphics g, PlotSettings view, int width, int height, Runnable onTileReady) {
+        int zoom = getZoom(view, width, height);
+        if (zoom == Integer.MIN_VALUE) return -1;
+
+        int left = view.getMarginLeft(), top = view.getMarginTop();
+        int chartWidth = width - (left + view.getMarginRight());
+        int chartHeight = height - (top + view.getMarginBottom());
+
+        // The pixel of the level at the top left corner of the chart, counted from (0, 0) to the right and down
+        long originX = Math.round(view.getMinX() / getUnitsPerPixelX(zoom));
+        long originY = Math.round(-view.getMaxY() / getUnitsPerPixelY(zoom));
+
+        int firstX = (int) Math.floorDiv(originX, TILE_SIZE), lastX = (int) Math.floorDiv(originX + chartWidth, TILE_SIZE);
+        int firstY = (int) Math.floorDiv(originY, TILE_SIZE), lastY = (int) Math.floorDiv(originY + chartHeight, TILE_SIZE);
+
+        Set<TileCache.Key> needed = new HashSet<TileCache.Key>();
+        for (int tileY = firstY; tileY <= lastY; tileY++) {
+            for (int tileX = firstX; tileX <= lastX; tileX++) needed.add(new TileCache.Key(generation, zoom, tileX, tileY));
+        }
+        wanted = needed;
+
+        Graphics chart = g.create();
+        int missing = 0;
+        try {
+            chart.clipRect(left, top, chartWidth, chartHeight);
+            for (int tileY = firstY; tileY <= lastY; tileY++) {
+                for (int tileX = firstX; tileX <= lastX; tileX++) {
+                    TileCache.Key key = new TileCache.Key(generation, zoom, tileX, tileY);
+                    int x = (int) (left + (long) tileX * TILE_SIZE - originX);
+                    int y = (int) (top + (long) tileY * TILE_SIZE - originY);
+
+                    BufferedImage tile = cache.get(key);
+                    if (tile != null) {
+                        chart.drawImage(tile, x, y, null);
+                    } else {
+                        chart.setColor(settings.backgroundColor);
+                        chart.fillRect(x, y, TILE_SIZE, TILE_SIZE);
+                        drawTileAsync(key, onTileReady);
+                        missing++;
+                    }
+                }
+            }
+        } finally {
+            chart.dispose();
+        }
+
+        // The box around the chart, like Graph.draw
+        g.setColor(settings.axisColor);
+        g.drawRect(left, top, chartWidth, chartHeight);
+        return missing;
+    }
+
+    /**
+     * Stops drawing tiles for this pyramid: the tiles waiting for the executor are skipped, and the ones being drawn
+     * are thrown away when they are done. Call it when the pyramid is replaced or its panel goes away
+     */
+    public void cancel() {
+        cancelled = true;
+        wanted = new HashSet<TileCache.Key>();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    // The number of tiles being drawn
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public TileCache getCache() {
+        return cache;
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // Draws a tile on the executor unless it is being drawn already
+    protected void drawTileAsync(TileCache.Key key, Runnable onTileReady) {
+        if (cancelled || !pending.add(key)) return;
+        CompletableFuture.runAsync(() -> {
+            try {
+                // The view moved on, or the pyramid was cancelled, before the tile's turn came
+                if (cancelled || !wanted.contains(key)) return;
+                BufferedImage tile = drawTile(key);
+                if (cancelled) return;
+                cache.put(key, tile);
+            } finally {
+                pending.remove(key);
+            }
+            if (onTileReady != null) onTileReady.run();
+        }, executor);
+    }
+
+    /**
+     * Draws one tile with its own graph. The graph is one pixel larger than the tile on every side, so the box Graph
+     * draws around the chart falls outside of the tile.
+     */
+    protected BufferedImage drawTile(TileCache.Key key) {
+        double unitsPerPixelX = getUnitsPerPixelX(key.zoom), unitsPerPixelY = getUnitsPerPixelY(key.zoom);
+        PlotSettings p = settings.copy();
+        p.setTitle(null);
+        p.setMarginLeft(0);
+        p.setMarginRight(0);
+        p.setMarginTop(0);
+        p.setMarginBottom(0);
+        p.setMinX(((long) key.tileX * TILE_SIZE - 1) * unitsPerPixelX);
+        p.setMaxX(((long) (key.tileX + 1) * TILE_SIZE + 1) * unitsPerPixelX);
+        p.setMaxY(-((long) key.tileY * TILE_SIZE - 1) * unitsPerPixelY);
+        p.setMinY(-((long) (key.tileY + 1) * TILE_SIZE + 1) * unitsPerPixelY);
+
+        Graph graph = new Graph(p);
+        graph.functions.addAll(plotters);
+
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.translate(-1, -1);
+            g.setClip(1, 1, TILE_SIZE, TILE_SIZE);
+            g.setColor(p.backgroundColor);
+            g.fillRect(1, 1, TILE_SIZE, TILE_SIZE);
+            graph.draw(g, TILE_SIZE + 2, TILE_SIZE + 2);
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+}
@@ -0,0 +1,114 @@
+package src.plotting;
+
+import java.awt.*;
+import java.util.Arrays;
+
+
+/**
+ * The sampled shape of one plotter for one frame, in pixels. A trace is a list of polylines: a segment which starts
+ * where the previous one ended is added to the current polyline, any other segment starts a new one.
+ *
+ * Plotters fill their traces in parallel (see Graph.draw), then the traces are drawn one after the other. A trace
+ * only belongs to one plotter at a time, so it needs no locking. The buffers grow when needed and are reused when
+ * the trace is cleared.
+ */
+public class Trace {
+
+    // The points of all the polylines one after the other
+    protected int[] xs = new int[256], ys = new int[256];
+    protected int length;
+
+    // Where each polyline starts in xs and ys
+    protected int[] starts = new int[16];
+    protected int polylines;
+
+    // How many times the plotter evaluated its function to make the trace (see RenderStats)
+    protected long samples;
+
+    // Whatever the plotter filling the trace keeps between frames (see ContinuousFunctionPlotter.sample). It stays
+    // with the trace rather than the thread, as the pool threads sampling the plotters lose their thread locals
+    protected Object plotterState;
+
+    // Polylines after the first are copied here to be drawn, as drawPolyline starts at the beginning of the arrays
+    private int[] drawXs = new int[0], drawYs = new int[0];
+
+    // Forgets all the polylines, keeping the buffers
+    public void clear() {
+        length = 0;
+        polylines = 0;
+        samples = 0;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    public void addSamples(long samples) {
+        this.samples += samples;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    /**
+     * Adds a line between two pixels to the trace
+     *
+     * @param x1 First point X
+     * @param y1 First point Y
+     * @param x2 Second point X
+     * @param y2 Second point Y
+     */
+    public void addSegment(int x1, int y1, int x2, int y2) {
+        int last = length - 1;
+
+        if (polylines == 0 || last < starts[polylines - 1] || xs[last] != x1 || ys[last] != y1) {
+            startPolyline();
+            addPoint(x1, y1);
+        }
+        addPoint(x2, y2);
+    }
+
+    // Draws every polyline of the trace with the current color of the graphics context, returns the number of calls
+    public int draw(Graphics g) {
+        int calls = 0;
+        for (int i = 0; i < polylines; i++) {
+            int start = starts[i];
+            int end = i + 1 < polylines ? starts[i + 1] : length;
+            if (end - start < 2) continue;
+
+            if (start == 0) {
+                g.drawPolyline(xs, ys, end);
+            } else {
+                int n = end - start;
+                if (drawXs.length < n) {
+                    drawXs = new int[xs.length];
+                    drawYs = new int[xs.length];
+                }
+                System.arraycopy(xs, start, drawXs, 0, n);
+                System.arraycopy(ys, start, drawYs, 0, n);
+                g.drawPolyline(drawXs, drawYs, n);
+            }
+            calls++;
+        }
+        return calls;
+    }
+
+    private void startPolyline() {
+        if (polylines == starts.length) starts = Arrays.copyOf(starts, polylines * 2);
+        starts[polylines++] = length;
+    }
+
+    private void addPoint(int x, int y) {
+        int last = length - 1;
+        if (last > starts[polylines - 1] && xs[last] == x && ys[last] == y) return;   // the same pixel again adds nothing
+        if (length == xs.length) {
+            xs = Arrays.copyOf(xs, length * 2);
+            ys = Arrays.copyOf(ys, length * 2);
+        }
+        xs[length] = x;
+        ys[length] = y;
+        length++;
+    }
+
+}
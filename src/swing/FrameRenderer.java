@@ -0,0 +1,298 @@
+package src.swing;
+
+import src.plotting.Graph;
+import src.plotting.PlotSettings;
+import src.plotting.Plotter;
+import src.plotting.RenderStats;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Renders frames of a graph on a background thread, so that drawing never blocks the event dispatch thread.
+ * The EDT asks for a frame with {@link #request} and paints the latest finished frame with {@link #paintLatest}.
+ * A new request cancels the frame in progress (by interrupting the render thread), so the renderer always works
+ * on the newest view and the EDT never waits for it, no matter how long a frame takes.
+ *
+ * Frames are double buffered: the render thread draws into a back image while the EDT paints the front one, and
+ * the two are swapped when a frame is finished. When a frame only pans the previous one by whole pixels, the old
+ * pixels are moved and only the strips which came into view are drawn.
+ */
+public class FrameRenderer {
+
+    // How much the range of the graph may change (relative to its size) for a frame to still be a pan of the last one
+    protected static final double SCALE_TOLERANCE = 1e-9;
+
+    // The component to repaint when a new frame is ready
+    protected final Component target;
+
+    protected final Object lock = new Object();
+
+    // The newest request which has not been started, and whether a frame is being drawn (guarded by lock)
+    protected Request pending;
+    protected boolean rendering, stopped;
+
+    // The latest finished frame and the request it was drawn for (guarded by lock)
+    protected BufferedImage front;
+    protected Request frontRequest;
+
+    // Frames which were cancelled or replaced before they were finished
+    protected long droppedFrames;
+
+    // The image the render thread draws into, and the graph it draws with (only used by the render thread)
+    protected BufferedImage back;
+    protected Graph graph;
+
+    // Collects the statistics of the frames, or null (see RenderStats)
+    protected volatile RenderStats stats;
+
+    protected final Thread thread;
+
+    public FrameRenderer(Component target) {
+        this.target = target;
+        this.thread = new Thread(this::renderLoop, "graph-renderer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Asks for a frame of the graph. The graph's settings and plotters are copied, so they may change as soon as
+     * this method returns.
+     *
+     * @param graph      The graph to draw
+     * @param width      The width of the frame
+     * @param height     The height of the frame
+     * @param background The colour around the chart
+     * @param panning    True if the frame may be made by moving the previous frame (while dragging)
+     */
+    public void request(Graph graph, int width, int height, Color background, boolean panning) {
+        Request request = new Request(graph.plotSettings.copy(), new ArrayList<Plotter>(graph.functions),
+                width, height, background, panning);
+
+        synchronized (lock) {
+            if (pending != null) droppedFrames++;
+            pending = request;
+            if (rendering) thread.interrupt();
+            lock.notifyAll();
+        }
+    }
+
+    // Paints the latest finished frame, if there is one
+    public void paintLatest(Graphics g) {
+        synchronized (lock) {
+            if (front != null) g.drawImage(front, 0, 0, null);
+        }
+    }
+
+    public long getDroppedFrames() {
+        synchronized (lock) {
+            return droppedFrames;
+        }
+    }
+
+    // Starts collecting statistics about the frames into stats, or stops when it is null
+    public void setStats(RenderStats stats) {
+        this.stats = stats;
+    }
+
+    // Stops the render thread. The renderer can't be used after this
+    public void dispose() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+        thread.interrupt();
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    protected void renderLoop() {
+        while (true) {
+            Request request;
+            BufferedImage previous;
+            Request previousRequest;
+
+            synchronized (lock) {
+                while (pending == null && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // a request arrived while nothing was being drawn, check again
+                    }
+                }
+                if (stopped) return;
+                request = pending;
+                pending = null;
+                rendering = true;
+                previous = front;
+                previousRequest = frontRequest;
+            }
+
+            Thread.interrupted();   // forget interrupts meant for an earlier frame
+            boolean finished = render(request, previous, previousRequest);
+
+            synchronized (lock) {
+                rendering = false;
+                if (finished) {
+                    BufferedImage swap = front;
+                    front = back;
+                    frontRequest = request;
+                    back = swap;
+                } else {
+                    droppedFrames++;
+                }
+            }
+
+            if (finished) target.repaint();
+        }
+    }
+
+    // Draws the frame into the back image, returns false if it was cancelled before it was finished
+    protected boolean render(Request request, BufferedImage previous, Request previousRequest) {
+        if (back == null || back.getWidth() != request.width || back.getHeight() != request.height) {
+            back = new BufferedImage(request.width, request.height, BufferedImage.TYPE_INT_RGB);
+        }
+
+        // The same graph is used for every frame, so its buffers are reused
+        if (graph == null) graph = new Graph(request.settings);
+        graph.plotSettings = request.settings;
+        graph.functions.clear();
+        graph.functions.addAll(request.plotters);
+
+        // A frame made of several regions counts as one frame
+        RenderStats stats = this.stats;
+        graph.setStats(stats);
+        if (stats != null) stats.beginFrame();
+        boolean finished = false;
+        try {
+            Point offset = (request.panning && previous != null) ? panOffset(request, previous, previousRequest) : null;
+            if (offset != null) finished = pan(graph, request, previous, offset);
+            else finished = drawRegion(graph, request, new Rectangle(0, 0, request.width, request.height));
+        } finally {
+            if (stats != null) {
+                if (finished) stats.endFrame();
+                else stats.cancelFrame();
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Works out whether the frame can be made by moving the previous one, which is when only the position of the
+     * graph changed and it moved by whole pixels.
+     *
+     * @return How far the content moved on the screen, or null if the previous frame can't be reused (the size or
+     * the zoom changed, or the move is not whole pixels)
+     */
+    protected Point panOffset(Request request, BufferedImage previous, Request previousRequest) {
+        PlotSettings p = request.settings, old = previousRequest.settings;
+        if (previous.getWidth() != request.width || previous.getHeight() != request.height) return null;
+        if (p.getMarginLeft() != old.getMarginLeft() || p.getMarginTop() != old.getMarginTop()) return null;
+        if (p.getMarginRight() != old.getMarginRight() || p.getMarginBottom() != old.getMarginBottom()) return null;
+
+        // The ranges are worked out again from both ends after every drag, so they differ in their last bits
+        if (!isSameScale(p.getRangeX(), old.getRangeX()) || !isSameScale(p.getRangeY(), old.getRangeY())) return null;
+
+        Rectangle inside = getInside(request);
+        int chartWidth = inside.width + 1, chartHeight = inside.height + 1;
+
+        // Moving right shows smaller values of X, moving down larger Y
+        double shiftX = (old.getMinX() - p.getMinX()) / p.getRangeX() * chartWidth;
+        double shiftY = (p.getMinY() - old.getMinY()) / p.getRangeY() * chartHeight;
+        int dx = (int) Math.round(shiftX), dy = (int) Math.round(shiftY);
+        if (Math.abs(shiftX - dx) > 0.01 || Math.abs(shiftY - dy) > 0.01) return null;
+        if (Math.abs(dx) >= inside.width || Math.abs(dy) >= inside.height) return null;
+        return new Point(dx, dy);
+    }
+
+    // Whether two ranges are the same zoom, up to rounding
+    protected static boolean isSameScale(double range, double oldRange) {
+        return Math.abs(range - oldRange) <= SCALE_TOLERANCE * Math.abs(oldRange);
+    }
+
+    /**
+     * Makes the frame by moving the pixels of the previous frame by the distance the graph was dragged, and draws
+     * only the strips of the chart that came into view. The box around the chart is drawn again too, in case the
+     * old curves touched it.
+     *
+     * @return False if drawing a strip was cancelled, so the frame is not finished
+     */
+    protected boolean pan(Graph graph, Request request, BufferedImage previous, Point offset) {
+        Rectangle inside = getInside(request);
+        int dx = offset.x, dy = offset.y;
+
+        Graphics2D bg = back.createGraphics();
+        try {
+            bg.drawImage(previous, 0, 0, null);
+            bg.setClip(inside);
+            bg.drawImage(previous, dx, dy, null);
+        } finally {
+            bg.dispose();
+        }
+        if (dx == 0 && dy == 0) return true;
+
+        Rectangle[] regions = {
+                // The strips that came into view
+                dx > 0 ? new Rectangle(inside.x, inside.y, dx, inside.height) : null,
+                dx < 0 ? new Rectangle(inside.x + inside.width + dx, inside.y, -dx, inside.height) : null,
+                dy > 0 ? new Rectangle(inside.x, inside.y, inside.width, dy) : null,
+                dy < 0 ? new Rectangle(inside.x, inside.y + inside.height + dy, inside.width, -dy) : null,
+
+                // The box around the chart
+                new Rectangle(inside.x - 1, inside.y - 1, inside.width + 2, 1),
+                new Rectangle(inside.x - 1, inside.y + inside.height, inside.width + 2, 1),
+                new Rectangle(inside.x - 1, inside.y, 1, inside.height),
+                new Rectangle(inside.x + inside.width, inside.y, 1, inside.height)
+        };
+        for (Rectangle region : regions) {
+            if (region != null && !drawRegion(graph, request, region)) return false;
+        }
+        return true;
+    }
+
+    // The inside of the chart, without the axes box around it
+    protected static Rectangle getInside(Request request) {
+        PlotSettings p = request.settings;
+        int chartWidth = request.width - (p.getMarginLeft() + p.getMarginRight());
+        int chartHeight = request.height - (p.getMarginTop() + p.getMarginBottom());
+        return new Rectangle(p.getMarginLeft() + 1, p.getMarginTop() + 1, chartWidth - 1, chartHeight - 1);
+    }
+
+    // Draws the part of the graph inside the given area of the back image, returns false if it was cancelled
+    protected boolean drawRegion(Graph graph, Request request, Rectangle area) {
+        Graphics2D bg = back.createGraphics();
+        try {
+            bg.setClip(area);
+            bg.setColor(request.background);
+            bg.fillRect(area.x, area.y, area.width, area.height);
+            return graph.draw(bg, request.width, request.height);
+        } finally {
+            bg.dispose();
+        }
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    // Everything needed to draw one frame, copied when the frame was requested
+    protected static class Request {
+        protected final PlotSettings settings;
+        protected final List<Plotter> plotters;
+        protected final int width, height;
+        protected final Color background;
+        protected final boolean panning;
+
+        protected Request(PlotSettings settings, List<Plotter> plotters, int width, int height, Color background,
+                          boolean panning) {
+            this.settings = settings;
+            this.plotters = plotters;
+            this.width = width;
+            this.height = height;
+            this.background = background;
+            this.panning = panning;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package src.swing;
 
 import src.plotting.Graph;
+import src.plotting.ImageExporter;
 import src.plotting.PlotSettings;
 
 import javax.swing.*;
@@ -46,7 +47,14 @@ public class GraphApplication extends JFrame implements ActionListener, Settings
         toolbar.add(exit);
 
         // add the panel to the middle of the BorderLayout, it will fill the window
-        graphPanel = new InteractiveGraphPanel(this);
+        InteractiveGraphPanel interactivePanel = new InteractiveGraphPanel(this);
+        graphPanel = interactivePanel;
+
+        // Run with -Dgraph.stats=true to show how long the frames take over the graph
+        graphPanel.setStatsVisible(Boolean.getBoolean("graph.stats"));
+
+        // Run with -Dgraph.tiles=true to paint the graph from cached tiles instead of whole frames
+        interactivePanel.setTiled(Boolean.getBoolean("graph.tiles"));
 
         // Make sure Java Exits when the close button is clicked
         addWindowListener(new WindowAdapter() {
@@ -117,7 +125,12 @@ public class GraphApplication extends JFrame implements ActionListener, Settings
                 File f = filechooser.getSelectedFile();
                 try {
                     String extension = f.getName().substring(f.getName().lastIndexOf(".") + 1);
-                    javax.imageio.ImageIO.write(graphPanel.getImage(), extension, f);
+                    if (extension.equalsIgnoreCase("png") && graphPanel.getGraph() != null) {
+                        // PNG files are drawn in tiles and written as they are drawn, see ImageExporter
+                        ImageExporter.writePng(graphPanel.getGraph(), graphPanel.getWidth(), graphPanel.getHeight(), f);
+                    } else {
+                        javax.imageio.ImageIO.write(graphPanel.getImage(), extension, f);
+                    }
                 } catch (IOException err) {
                     JOptionPane.showMessageDialog(this, "Could not save image: " + err.getMessage());
                 }
@@ -1,6 +1,7 @@
 package src.swing;
 
 import src.plotting.Graph;
+import src.plotting.RenderStats;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -18,9 +19,14 @@ public class GraphPanel extends JPanel {
     // The graph object renders charts and graphs
     protected Graph graph;
 
+    // Collects the statistics shown over the graph, or null when they are hidden (see setStatsVisible)
+    protected RenderStats stats;
+
     // Initialises the panel with a graph object
     public void setGraph(Graph graph) {
+        if (this.graph != null && this.graph.getStats() == stats) this.graph.setStats(null);
         this.graph = graph;
+        if (graph != null && stats != null) graph.setStats(stats);
         repaint();
     }
 
@@ -28,6 +34,60 @@ public class GraphPanel extends JPanel {
     public void paintComponent(Graphics g) {
        super.paintComponent(g);
        if (graph != null) graph.draw(g, getWidth(), getHeight());
+       if (stats != null) paintStats(g);
+    }
+
+    /**
+     * Shows or hides the statistics of the frames over the graph: the time of the latest frame and the average, the
+     * frames per second, the samples of each plotter, the draw calls and the dropped frames. The statistics are
+     * only collected while they are shown.
+     */
+    public void setStatsVisible(boolean visible) {
+        if (visible == (stats != null)) return;
+        stats = visible ? new RenderStats() : null;
+        if (graph != null) graph.setStats(stats);
+        repaint();
+    }
+
+    public boolean isStatsVisible() {
+        return stats != null;
+    }
+
+    // Frames which were not shown because a newer one was asked for first
+    protected long getDroppedFrames() {
+        return 0;
+    }
+
+    // Draws the statistics in the top left corner of the chart
+    protected void paintStats(Graphics g) {
+        RenderStats.Snapshot s = stats.getSnapshot();
+
+        String[] lines = new String[4 + s.getPlotterCount()];
+        lines[0] = String.format("frame %.2f ms (average %.2f ms)", s.frameMillis, s.averageFrameMillis);
+        lines[1] = String.format("%.1f frames per second", s.framesPerSecond);
+        lines[2] = s.drawCalls + " draw calls";
+        lines[3] = getDroppedFrames() + " dropped frames";
+        for (int i = 0; i < s.getPlotterCount(); i++) {
+            lines[4 + i] = s.getPlotterName(i) + ": " + s.getSamples(i) + " samples";
+        }
+
+        FontMetrics metrics = g.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int width = 0;
+        for (String line : lines) width = Math.max(width, metrics.stringWidth(line));
+
+        int x = 4, y = 4;
+        if (graph != null) {
+            x += graph.plotSettings.getMarginLeft();
+            y += graph.plotSettings.getMarginTop();
+        }
+
+        g.setColor(new Color(255, 255, 255, 210));
+        g.fillRect(x, y, width + 8, lineHeight * lines.length + 6);
+        g.setColor(Color.DARK_GRAY);
+        for (int i = 0; i < lines.length; i++) {
+            g.drawString(lines[i], x + 4, y + 3 + metrics.getAscent() + i * lineHeight);
+        }
     }
 
     // Returns an image of the graph which can be saved to disk
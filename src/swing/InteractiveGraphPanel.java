@@ -1,7 +1,12 @@
 package src.swing;
 
+import src.plotting.Graph;
 import src.plotting.PlotSettings;
+import src.plotting.TileCache;
+import src.plotting.TilePyramid;
+import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class InteractiveGraphPanel extends GraphPanel {
@@ -10,6 +15,23 @@ public class InteractiveGraphPanel extends GraphPanel {
     protected double minX, maxX, minY, maxY;
     protected boolean mouseDown;
 
+    // Draws the frames on a background thread, so dragging and zooming never wait for the graph to be drawn
+    protected FrameRenderer renderer;
+
+    // The view of the last frame that was requested from the renderer
+    protected PlotSettings requestedSettings;
+    protected int requestedWidth, requestedHeight;
+
+    // How many tiles are kept, 192 tiles of 256 x 256 pixels are 48 MB
+    public static final int TILE_CACHE_SIZE = 192;
+
+    // Whether the graph is painted from tiles (see TilePyramid) instead of frames of the renderer. Off by default
+    protected boolean tiled = false;
+
+    // The tiles of the graph, made again when the graph or the scale changes outside of the zoom levels
+    protected TilePyramid pyramid;
+    protected final TileCache tileCache = new TileCache(TILE_CACHE_SIZE);
+
     public InteractiveGraphPanel(final SettingsUpdateListener listener) {
 
         addMouseListener(new MouseAdapter() {
@@ -30,6 +52,7 @@ public class InteractiveGraphPanel extends GraphPanel {
             public void mouseReleased(MouseEvent e) {
                 mouseDown = false;
                 listener.graphUpdated(graph.plotSettings);
+                refresh();  // replace the panned frame with a fresh one
             }
 
         });
@@ -41,8 +64,8 @@ public class InteractiveGraphPanel extends GraphPanel {
                 if (graph != null) {
                     PlotSettings p = graph.plotSettings;
 
-                    double movementX = graph.getPlotWidth(e.getX() - mouseDownX);
-                    double movementY = graph.getPlotHeight(e.getY() - mouseDownY);
+                    double movementX = (e.getX() - mouseDownX) * getUnitsPerPixelX();
+                    double movementY = (e.getY() - mouseDownY) * getUnitsPerPixelY();
 
                     p.setMinX(minX-movementX);
                     p.setMaxX(maxX-movementX);
@@ -62,6 +85,13 @@ public class InteractiveGraphPanel extends GraphPanel {
 
                     PlotSettings p = graph.plotSettings;
 
+                    // With tiles, zoom to the next level of the pyramid so the tiles of that level can be used
+                    if (pyramid != null && zoomToLevel(e.getWheelRotation() < 0 ? 1 : -1)) {
+                        listener.graphUpdated(graph.plotSettings);
+                        repaint();
+                        return;
+                    }
+
                     double multiplier;
 
                     if (e.getWheelRotation() < 0) {
@@ -91,4 +121,142 @@ public class InteractiveGraphPanel extends GraphPanel {
 
     }
 
+    // Paints the latest frame of the renderer, and asks for a new one if the view changed since the last request
+    public void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (graph == null) return;
+
+        int width = getWidth(), height = getHeight();
+        if (width <= 0 || height <= 0) return;
+
+        if (tiled && graph.plotSettings.getTitle() == null) {
+            paintTiles(g, width, height);
+            return;
+        }
+
+        PlotSettings p = graph.plotSettings;
+        boolean changed = requestedSettings == null || width != requestedWidth || height != requestedHeight
+                || p.getMinX() != requestedSettings.getMinX() || p.getMaxX() != requestedSettings.getMaxX()
+                || p.getMinY() != requestedSettings.getMinY() || p.getMaxY() != requestedSettings.getMaxY();
+
+        if (renderer == null) {
+            renderer = new FrameRenderer(this);
+            renderer.setStats(stats);
+        }
+        if (changed) {
+            renderer.request(graph, width, height, getBackground(), mouseDown);
+            requestedSettings = p.copy();
+            requestedWidth = width;
+            requestedHeight = height;
+        }
+
+        renderer.paintLatest(g);
+        if (stats != null) paintStats(g);
+    }
+
+    /**
+     * Paints the graph from the tiles of the pyramid. The tiles in the cache are painted at once, the others are
+     * drawn in parallel and the panel is painted again as each one is ready. When the scale of the view is not one
+     * of the levels of the pyramid (the panel was resized, or the area was typed in), a new pyramid is made with
+     * the scale of the view as its first level.
+     */
+    protected void paintTiles(Graphics g, int width, int height) {
+        PlotSettings p = graph.plotSettings;
+        if (pyramid == null || pyramid.getZoom(p, width, height) == Integer.MIN_VALUE) {
+            discardPyramid();
+            tileCache.clear();
+            pyramid = new TilePyramid(graph, width, height, tileCache, ForkJoinPool.commonPool());
+        }
+
+        // The statistics show how long it takes to put the tiles together, which is what the panel waits for
+        if (stats != null) stats.beginFrame();
+        try {
+            if (pyramid.paint(g, p, width, height, this::repaint) < 0) return;
+        } finally {
+            if (stats != null) stats.endFrame();
+        }
+        if (stats != null) paintStats(g);
+    }
+
+    // Zooms the view in (1) or out (-1) to the next level of the pyramid around its centre, returns false if it can't
+    protected boolean zoomToLevel(int levels) {
+        PlotSettings p = graph.plotSettings;
+        int zoom = pyramid.getZoom(p, getWidth(), getHeight());
+        if (zoom == Integer.MIN_VALUE) return false;
+
+        double rangeX = pyramid.getUnitsPerPixelX(zoom + levels) * (getWidth() - (p.getMarginLeft() + p.getMarginRight()));
+        double rangeY = pyramid.getUnitsPerPixelY(zoom + levels) * (getHeight() - (p.getMarginTop() + p.getMarginBottom()));
+        double centreX = (p.getMinX() + p.getMaxX()) / 2, centreY = (p.getMinY() + p.getMaxY()) / 2;
+        p.setMinX(centreX - rangeX / 2);
+        p.setMaxX(p.getMinX() + rangeX);
+        p.setMinY(centreY - rangeY / 2);
+        p.setMaxY(p.getMinY() + rangeY);
+        return true;
+    }
+
+    // Cancels the tiles the pyramid is still drawing, and forgets it
+    protected void discardPyramid() {
+        if (pyramid != null) pyramid.cancel();
+        pyramid = null;
+    }
+
+    /**
+     * Chooses whether the graph is painted from tiles which are kept while panning and zooming (true), or from whole
+     * frames drawn by the renderer (false, the default). A graph with a title is always painted from frames
+     */
+    public void setTiled(boolean tiled) {
+        this.tiled = tiled;
+        refresh();
+    }
+
+    public boolean isTiled() {
+        return tiled;
+    }
+
+    // Draws the graph again, for changes the panel can't see (such as new plotters or colours)
+    public void refresh() {
+        requestedSettings = null;
+        discardPyramid();
+        repaint();
+    }
+
+    public void setGraph(Graph graph) {
+        requestedSettings = null;
+        discardPyramid();
+        super.setGraph(graph);
+    }
+
+    // The statistics are collected by the renderer, which draws the frames
+    public void setStatsVisible(boolean visible) {
+        super.setStatsVisible(visible);
+        if (renderer != null) renderer.setStats(stats);
+    }
+
+    protected long getDroppedFrames() {
+        return renderer != null ? renderer.getDroppedFrames() : 0;
+    }
+
+    // Stops the render thread and the tiles being drawn when the panel is removed from its window
+    public void removeNotify() {
+        super.removeNotify();
+        discardPyramid();
+        tileCache.clear();
+        if (renderer != null) {
+            renderer.dispose();
+            renderer = null;
+            requestedSettings = null;
+        }
+    }
+
+    // How much of the X axis and Y axis one pixel of the chart shows
+    protected double getUnitsPerPixelX() {
+        PlotSettings p = graph.plotSettings;
+        return p.getRangeX() / (getWidth() - (p.getMarginLeft() + p.getMarginRight()));
+    }
+
+    protected double getUnitsPerPixelY() {
+        PlotSettings p = graph.plotSettings;
+        return p.getRangeY() / (getHeight() - (p.getMarginTop() + p.getMarginBottom()));
+    }
+
 }
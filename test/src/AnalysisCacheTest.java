@@ -0,0 +1,89 @@
+package src;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+class AnalysisCacheTest {
+
+    @Test
+    void theSameFunctionIsAnalyzedOnce() {
+        AnalysisCache cache = new AnalysisCache(10, 1 << 20);
+        AnalysisResult first = cache.analyze(Function.parse("6 -41 59 -20"));
+        AnalysisResult second = cache.analyze(Function.parse("6 -41 59 -20"));
+
+        assertSame(first, second);
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertArrayEquals(new double[] {0.5, 4.0 / 3, 5}, first.getRoots(), 1e-6);
+    }
+
+    @Test
+    void equalFunctionsHaveEqualKeys() {
+        AnalysisCache cache = new AnalysisCache(10, 1 << 20);
+        AnalysisResult result = cache.analyze(new Function(new double[] {-1, 0, 1}));
+
+        // the same function with a zero leading coefficient and -0.0
+        assertSame(result, cache.analyze(new Function(new double[] {-1, -0.0, 1, 0})));
+    }
+
+    @Test
+    void changingTheArrayLaterDoesNotChangeTheResult() {
+        AnalysisCache cache = new AnalysisCache(10, 1 << 20);
+        double[] coeffs = {-4, 0, 1};
+        AnalysisResult result = cache.analyze(new Function(coeffs));
+
+        coeffs[0] = -9;
+        assertEquals(-4, result.getFunction().getCoefficient(0));
+        assertArrayEquals(new double[] {-2, 2}, result.getRoots(), 1e-6);
+
+        // the changed function is another function
+        assertNull(cache.getIfPresent(new Function(coeffs)));
+        assertSame(result, cache.getIfPresent(new Function(new double[] {-4, 0, 1})));
+    }
+
+    @Test
+    void leastRecentlyUsedResultsAreEvicted() {
+        AnalysisCache cache = new AnalysisCache(2, 1 << 20);
+        Function a = Function.parse("1 -1"), b = Function.parse("1 -2"), c = Function.parse("1 -3");
+        AnalysisResult resultA = cache.analyze(a);
+        cache.analyze(b);
+        cache.analyze(a);       // b is now the least recently used
+        cache.analyze(c);
+
+        assertSame(resultA, cache.getIfPresent(a));
+        assertNull(cache.getIfPresent(b));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2, cache.getStats().getSize());
+    }
+
+    @Test
+    void analysisGoesThroughItsCache() {
+        AnalysisCache cache = new AnalysisCache(10, 1 << 20);
+        FunctionAnalysis analysis = new FunctionAnalysis(Function.parse("1 0 -7 6"));
+        analysis.setCache(cache);
+        AnalysisResult result = analysis.analyze();
+
+        assertSame(result, analysis.analyze());
+        assertSame(result, cache.getIfPresent(Function.parse("1 0 -7 6")));
+
+        analysis.setCache(null);
+        assertNotSame(result, analysis.analyze());
+    }
+
+    @Test
+    void analysisUsesNoCacheUnlessOneIsChosen() {
+        Function f = Function.parse("1 -2 -13 14 24");
+        AnalysisCache.getShared().analyze(f);
+
+        FunctionAnalysis analysis = new FunctionAnalysis(f);
+        assertNull(analysis.getCache());
+        assertNotSame(AnalysisCache.getShared().getIfPresent(f), analysis.analyze());
+    }
+
+}
@@ -0,0 +1,125 @@
+package src;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class AnalysisServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private AnalysisServer server;
+
+    // a server on a free port of the local machine
+    private AnalysisServer start(AnalysisCache cache) throws IOException {
+        server = new AnalysisServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), cache);
+        server.start();
+        return server;
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpResponse<byte[]> get(String pathAndQuery) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(pathAndQuery)));
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + server.getPort()
+                + pathAndQuery);
+    }
+
+    private static String text(HttpResponse<byte[]> response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void analyzeAnswersWithTheRootsAsJson() throws Exception {
+        start(new AnalysisCache(100, 1 << 20));
+        HttpResponse<byte[]> response = get("/analyze?f=1,0,-4");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        assertTrue(text(response).contains("\"roots\":[-2.0,2.0]"), text(response));
+    }
+
+    @Test
+    void analyzeTakesTheFunctionFromThePostBody() throws Exception {
+        start(new AnalysisCache(100, 1 << 20));
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(uri("/analyze"))
+                .POST(HttpRequest.BodyPublishers.ofString("1 -3")));
+
+        assertEquals(200, response.statusCode());
+        assertTrue(text(response).contains("\"roots\":[3.0]"), text(response));
+    }
+
+    @Test
+    void statsCountTheRepeatedFunctions() throws Exception {
+        start(new AnalysisCache(100, 1 << 20));
+        get("/analyze?f=1,-1");
+        get("/analyze?f=1,-1");
+        HttpResponse<byte[]> response = get("/stats");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(text(response).startsWith("{\"hits\":1,\"misses\":1,"), text(response));
+    }
+
+    @Test
+    void renderAnswersWithAPngImage() throws Exception {
+        start(new AnalysisCache(100, 1 << 20));
+        HttpResponse<byte[]> response = get("/render?f=1,0,-1&width=120&height=80&minX=-3&maxX=3");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(""));
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(response.body()));
+        assertNotNull(image);
+        assertEquals(120, image.getWidth());
+        assertEquals(80, image.getHeight());
+    }
+
+    @Test
+    void wrongRequestsAreAnsweredWith400() throws Exception {
+        start(new AnalysisCache(100, 1 << 20));
+        assertEquals(400, get("/analyze").statusCode());
+        assertEquals(400, get("/analyze?f=1,x,2").statusCode());
+        assertEquals(400, get("/render?f=1,0&width=wide").statusCode());
+        assertEquals(400, get("/render?f=1,0&width=100000&height=100000").statusCode());
+        assertEquals(400, get("/render?f=1,0&minX=1&maxX=1").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/stats")).DELETE()).statusCode());
+    }
+
+    @Test
+    void failuresOfTheServerAreAnsweredWith500() throws Exception {
+        start(new AnalysisCache(100, 1 << 20) {
+            public AnalysisResult analyze(Function f) {
+                throw new IllegalStateException("broken");
+            }
+        });
+        HttpResponse<byte[]> response = get("/analyze?f=1,0,-4");
+
+        assertEquals(500, response.statusCode());
+        assertTrue(text(response).startsWith("{\"error\":"), text(response));
+    }
+
+}
@@ -0,0 +1,110 @@
+package src;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class BatchAnalysisTest {
+
+    @TempDir
+    Path dir;
+
+    // many more lines than the reader may be ahead of the writer, so a writer that stops would block the reader
+    private static String input(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++)
+            sb.append(i % 7).append(" 0 -1\n");
+        return sb.toString();
+    }
+
+    @Test
+    void oneLineForEveryFunctionInOrder() throws IOException {
+        StringWriter out = new StringWriter();
+        long written = new BatchAnalysis(2).run(new BufferedReader(new StringReader("1 0 -1\n\nnot a function\n2 -2\n")),
+                out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, written);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("{\"function\":\"x^2 - 1\",\"roots\":[-1.0,1.0]"), lines[0]);
+        assertTrue(lines[1].startsWith("{\"line\":3,\"error\":"), lines[1]);
+        assertTrue(lines[2].startsWith("{\"function\":\"2x - 2\",\"roots\":[1.0]"), lines[2]);
+    }
+
+    @Test
+    void oneRecordForEveryFunctionOfABinaryInput() throws IOException {
+        double[][] functions = {{-1, 0, 1}, new double[5], {Double.NaN, 1}, {-2, 2}};
+        Path input = dir.resolve("functions.bin"), output = dir.resolve("results.bin");
+        try (BinaryFormat.PolynomialWriter writer = new BinaryFormat.PolynomialWriter(input)) {
+            for (double[] coeffs : functions) writer.write(new Function(coeffs));
+        }
+
+        long written;
+        try (BinaryFormat.PolynomialReader in = new BinaryFormat.PolynomialReader(input);
+             BinaryFormat.ResultWriter out = new BinaryFormat.ResultWriter(output)) {
+            written = new BatchAnalysis(2).run(in, out);
+        }
+        assertEquals(functions.length, written);
+
+        // the first record is x^2 - 1: 2 roots and 1 minimum point
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(output)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(8);
+        assertEquals(2, buffer.getInt());
+        assertEquals(1, buffer.getInt());
+    }
+
+    @Test
+    void failingSinkIsReportedInsteadOfHanging() {
+        Writer failing = new Writer() {
+            private int writes;
+
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                if (++writes > 10) throw new IOException("disk full");
+            }
+
+            public void flush() {
+            }
+
+            public void close() {
+            }
+        };
+
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(20), () -> assertThrows(IOException.class,
+                () -> new BatchAnalysis(1).run(new BufferedReader(new StringReader(input(2000))), failing)));
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    void failingReportSinkIsReportedInsteadOfHanging() {
+        Writer failing = new Writer() {
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("closed");
+            }
+
+            public void flush() {
+            }
+
+            public void close() {
+            }
+        };
+
+        assertTimeoutPreemptively(Duration.ofSeconds(20), () -> assertThrows(IOException.class,
+                () -> new BatchAnalysis(1).runReports(new BufferedReader(new StringReader(input(2000))), failing)));
+    }
+}
@@ -0,0 +1,153 @@
+package src;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class BinaryFormatTest {
+
+    @TempDir
+    Path dir;
+
+    private static double[] coefficients(Function f) {
+        double[] coeffs = new double[f.getDegree() + 1];
+        for (int i = 0; i < coeffs.length; i++) coeffs[i] = f.getCoefficient(i);
+        return coeffs;
+    }
+
+    @Test
+    void polynomialsRoundTrip() throws IOException {
+        double[][] functions = {
+                {-20, 59, -41, 6},
+                {7},
+                {Double.MIN_VALUE, -0.0, 1e300, Math.PI, -1},
+                new double[1001],
+        };
+        functions[3][1000] = 1;
+        functions[3][0] = -1;
+
+        Path file = dir.resolve("functions.bin");
+        try (BinaryFormat.PolynomialWriter writer = new BinaryFormat.PolynomialWriter(file)) {
+            for (double[] coeffs : functions) writer.write(new Function(coeffs));
+        }
+        assertEquals(8 + Arrays.stream(functions).mapToLong(c -> 8 + 8L * c.length).sum(), Files.size(file));
+
+        try (BinaryFormat.PolynomialReader reader = new BinaryFormat.PolynomialReader(file)) {
+            for (double[] coeffs : functions) {
+                double[] read = coefficients(reader.next());
+                // compared bit for bit, so -0.0 must stay -0.0
+                assertEquals(coeffs.length, read.length);
+                for (int i = 0; i < coeffs.length; i++)
+                    assertEquals(Double.doubleToRawLongBits(coeffs[i]), Double.doubleToRawLongBits(read[i]));
+            }
+            assertNull(reader.next());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void anEmptyBatchHasOnlyTheHeader() throws IOException {
+        Path file = dir.resolve("empty.bin");
+        new BinaryFormat.PolynomialWriter(file).close();
+
+        assertEquals(8, Files.size(file));
+        try (BinaryFormat.PolynomialReader reader = new BinaryFormat.PolynomialReader(file)) {
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void wrongFilesAreRejected() throws IOException {
+        Path text = dir.resolve("text.bin");
+        Files.writeString(text, "6 -41 59 -20\n");
+        assertThrows(IOException.class, () -> new BinaryFormat.PolynomialReader(text));
+
+        Path results = dir.resolve("results.bin");
+        new BinaryFormat.ResultWriter(results).close();
+        assertThrows(IOException.class, () -> new BinaryFormat.PolynomialReader(results));
+
+        // a record cut off in the middle of its coefficients
+        Path whole = dir.resolve("whole.bin");
+        try (BinaryFormat.PolynomialWriter writer = new BinaryFormat.PolynomialWriter(whole)) {
+            writer.write(Function.parse("1 2 3"));
+        }
+        byte[] bytes = Files.readAllBytes(whole);
+        Path truncated = dir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 4));
+        try (BinaryFormat.PolynomialReader reader = new BinaryFormat.PolynomialReader(truncated)) {
+            assertThrows(IOException.class, reader::next);
+        }
+
+        // a degree so large that the size of the record overflows
+        Path corrupt = dir.resolve("corrupt.bin");
+        ByteBuffer header = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(BinaryFormat.POLYNOMIAL_MAGIC).putInt(BinaryFormat.VERSION).putInt(Integer.MAX_VALUE).putInt(0);
+        Files.write(corrupt, header.array());
+        try (BinaryFormat.PolynomialReader reader = new BinaryFormat.PolynomialReader(corrupt)) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+
+    @Test
+    void resultsAreWrittenInTheDocumentedLayout() throws IOException {
+        AnalysisResult result = new FunctionAnalysis(Function.parse("1 0 -1 0")).analyze();     // x³ - x
+
+        Path file = dir.resolve("results.bin");
+        try (BinaryFormat.ResultWriter writer = new BinaryFormat.ResultWriter(file)) {
+            writer.write(result);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(BinaryFormat.RESULT_MAGIC, buffer.getInt());
+        assertEquals(BinaryFormat.VERSION, buffer.getInt());
+
+        int roots = buffer.getInt(), min = buffer.getInt(), max = buffer.getInt(), inflection = buffer.getInt();
+        assertEquals(3, roots);
+        assertEquals(1, min);
+        assertEquals(1, max);
+        assertEquals(1, inflection);
+
+        double[] points = new double[roots + min + max + inflection];
+        buffer.asDoubleBuffer().get(points);
+        buffer.position(buffer.position() + 8 * points.length);
+        assertArrayEquals(result.getRoots(), Arrays.copyOfRange(points, 0, 3));
+        assertArrayEquals(result.getMinPoints(), Arrays.copyOfRange(points, 3, 4));
+        assertArrayEquals(result.getMaxPoints(), Arrays.copyOfRange(points, 4, 5));
+        assertArrayEquals(result.getInflectionPoints(), Arrays.copyOfRange(points, 5, 6));
+
+        // the signs of f between the 3 roots, of f' between the 2 extrema points and of f'' around the inflection
+        // point, padded from 9 to 16 bytes
+        byte[] signs = new byte[buffer.remaining()];
+        buffer.get(signs);
+        assertArrayEquals(new byte[] {-1, 1, -1, 1, 1, -1, 1, -1, 1, 0, 0, 0, 0, 0, 0, 0}, signs);
+    }
+
+    @Test
+    void aFailureHasOnlyItsCounts() throws IOException {
+        Path file = dir.resolve("failure.bin");
+        try (BinaryFormat.ResultWriter writer = new BinaryFormat.ResultWriter(file)) {
+            writer.writeFailure();
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(8);
+        assertEquals(16, buffer.remaining());
+        assertEquals(-1, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+    }
+
+}
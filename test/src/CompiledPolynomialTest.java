@@ -0,0 +1,52 @@
+package src;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+// the compiled evaluators must give exactly the same values as the Horner loop of Function
+class CompiledPolynomialTest {
+
+    @Test
+    void sameValuesAsFunction() {
+        Random random = new Random(1);
+        for (int degree = 0; degree <= 20; degree++) {
+            double[] coeffs = new double[degree + 1];
+            for (int i = 0; i <= degree; i++)
+                coeffs[i] = random.nextGaussian();
+            Function f = new Function(coeffs);
+            CompiledPolynomial compiled = f.compile();
+
+            double[] xs = new double[300];
+            for (int i = 0; i < xs.length; i++)
+                xs[i] = random.nextGaussian() * 3;
+            double[] ys = new double[xs.length];
+            compiled.calcValues(xs, ys, xs.length - 1);
+
+            for (int i = 0; i < xs.length - 1; i++) {
+                assertEquals(f.calcValue(xs[i]), compiled.calcValue(xs[i]), 0, "degree " + degree);
+                assertEquals(f.calcValue(xs[i]), ys[i], 0, "degree " + degree);
+            }
+            assertEquals(0, ys[xs.length - 1], 0, "only count values are written");
+        }
+    }
+
+    @Test
+    void unrolledUpToDegree16() {
+        assertTrue(new CompiledPolynomial(new double[17]).isUnrolled());
+        assertFalse(new CompiledPolynomial(new double[18]).isUnrolled());
+    }
+
+    @Test
+    void coefficientsAreCopied() {
+        double[] coeffs = {1, 2, 3};
+        CompiledPolynomial compiled = new CompiledPolynomial(coeffs);
+        coeffs[2] = 100;
+        assertEquals(6, compiled.calcValue(1), 0);
+    }
+}
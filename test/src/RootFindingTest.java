@@ -0,0 +1,191 @@
+package src;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/* the accuracy of the root solvers (NewtonRaphsonSolver, AberthEhrlichSolver), of deflation (Deflation) and of
+ * Function.findRoots, which puts them together. the functions are built from known roots.
+ */
+class RootFindingTest {
+
+    // the coefficients of scale * (x - roots[0]) * (x - roots[1]) * ..., in the order of Function
+    static double[] fromRoots(double scale, double... roots) {
+        double[] coeffs = {scale};
+        for (double root : roots) {
+            double[] next = new double[coeffs.length + 1];
+            for (int i = 0; i < coeffs.length; i++) {
+                next[i + 1] += coeffs[i];
+                next[i] -= root * coeffs[i];
+            }
+            coeffs = next;
+        }
+        return coeffs;
+    }
+
+    private static double[] sorted(double[] values) {
+        double[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    @Test
+    void newtonRaphsonConvergesToARoot() {
+        double[] coeffs = fromRoots(2, -3, 0.5, 4);
+        NewtonRaphsonSolver.Result result = new NewtonRaphsonSolver().solve(coeffs, 3);
+
+        assertTrue(result.isConverged());
+        double root = result.getRoot();
+        double nearest = Math.min(Math.abs(root + 3), Math.min(Math.abs(root - 0.5), Math.abs(root - 4)));
+        assertEquals(0, nearest, 1e-10);
+    }
+
+    @Test
+    void newtonRaphsonReportsAFunctionWithoutRealRoots() {
+        // x² + 1 has no real root, so every restart is used and none converges
+        NewtonRaphsonSolver.Result result = new NewtonRaphsonSolver(1e-12, 50, 3).solve(new double[] {1, 0, 1}, 2);
+        assertFalse(result.isConverged());
+        assertEquals(3, result.getRestarts());
+    }
+
+    @Test
+    void rootBoundContainsEveryRoot() {
+        double[] coeffs = fromRoots(0.5, -7, 1, 3);
+        double bound = NewtonRaphsonSolver.rootBound(coeffs, 3);
+        assertTrue(bound > 7);
+    }
+
+    @Test
+    void findRootsOfOddAndEvenDegrees() {
+        double[][] cases = {
+                {1},
+                {-2, 3},
+                {-2, -1, 1, 2},
+                {-5, -0.25, 0.5, 3, 8},
+                {-4, -3, -2, -1, 1, 2, 3, 4},
+        };
+        for (double[] roots : cases) {
+            double[] found = new Function(fromRoots(3, roots)).findRoots(new NewtonRaphsonSolver());
+            assertArrayEquals(roots, sorted(found), 1e-7, "roots of " + new Function(fromRoots(3, roots)));
+        }
+    }
+
+    @Test
+    void findRootsOfEvenDegreesWithoutRealRoots() {
+        // (x² + 1)(x² + 4) and (x² + 1)(x - 1)²: the second touches the axis only at its minimum
+        assertEquals(0, new Function(new double[] {4, 0, 5, 0, 1}).findRoots(new NewtonRaphsonSolver()).length);
+
+        double[] roots = Function.modifyArray(
+                new Function(new double[] {1, -2, 2, -2, 1}).findRoots(new NewtonRaphsonSolver()));
+        assertEquals(1, roots.length);
+        assertEquals(1, roots[0], 1e-6);
+    }
+
+    @Test
+    void findRootsUsesTheKnownRootsOfTheDerivative() {
+        Function f = new Function(fromRoots(1, -2, 1, 3, 5));
+        double[] derivativeRoots = f.calcDerivative().findRoots(new NewtonRaphsonSolver());
+        double[] found = f.findRoots(new NewtonRaphsonSolver(), derivativeRoots);
+        assertArrayEquals(new double[] {-2, 1, 3, 5}, sorted(found), 1e-7);
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    @Test
+    void aberthEhrlichFindsAllTheRootsAtOnce() {
+        double[] roots = {-10, -9, -7, -4, -1, 1, 2, 6, 9, 12};
+        double[] found = new AberthEhrlichSolver().findRealRoots(fromRoots(1, roots), roots.length);
+        assertArrayEquals(roots, sorted(found), 1e-8);
+    }
+
+    @Test
+    void aberthEhrlichFindsComplexRoots() {
+        // (x² + 1)(x - 2) has the roots i, -i and 2
+        double[][] roots = new AberthEhrlichSolver().findComplexRoots(new double[] {-2, 1, -2, 1}, 3);
+        int real = 0, imaginary = 0;
+        for (int k = 0; k < 3; k++) {
+            if (Math.abs(roots[1][k]) < 1e-12) {
+                assertEquals(2, roots[0][k], 1e-12);
+                real++;
+            } else {
+                assertEquals(0, roots[0][k], 1e-12);
+                assertEquals(1, Math.abs(roots[1][k]), 1e-12);
+                imaginary++;
+            }
+        }
+        assertEquals(1, real);
+        assertEquals(2, imaginary);
+
+        double[] realRoots = new AberthEhrlichSolver().findRealRoots(new double[] {-2, 1, -2, 1}, 3);
+        assertArrayEquals(new double[] {2}, realRoots, 1e-12);
+    }
+
+    @Test
+    void aberthEhrlichAcceptsAMultipleRoot() {
+        // (x - 1)²(x + 2): the double root comes out as a small cluster, which is still real
+        double[] found = Function.modifyArray(new AberthEhrlichSolver().findRealRoots(fromRoots(1, 1, 1, -2), 3));
+        assertArrayEquals(new double[] {-2, 1}, found, 1e-6);
+    }
+
+    @Test
+    void aberthEhrlichIgnoresLeadingZeros() {
+        double[] coeffs = Arrays.copyOf(fromRoots(2, -1, 3), 5);     // 0x⁴ + 0x³ + 2x² - 4x - 6
+        assertArrayEquals(new double[] {-1, 3}, sorted(new AberthEhrlichSolver().findRealRoots(coeffs, 4)), 1e-12);
+    }
+
+    // ______________________________________________________________________________________________________________
+
+    @Test
+    void deflationByAnExactRootInBothDirections() {
+        double[] coeffs = fromRoots(6, 0.5, 4.0 / 3, 5);     // 6x³ - 41x² + 59x - 20
+
+        double[] forward = new double[3];
+        assertEquals(0, Deflation.divideForward(coeffs, 3, 0.5, forward), 1e-12);
+        assertArrayEquals(fromRoots(6, 4.0 / 3, 5), forward, 1e-12);
+
+        double[] backward = new double[3];
+        assertEquals(0, Deflation.divideBackward(coeffs, 3, 5, backward), 1e-12);
+        assertArrayEquals(fromRoots(6, 0.5, 4.0 / 3), backward, 1e-12);
+    }
+
+    @Test
+    void deflationInPlace() {
+        double[] work = fromRoots(1, -3, 0.25, 2, 7);
+        int degree = Deflation.divide(work, 4, new double[] {7, 0.25}, 2, work);
+        assertEquals(2, degree);
+        assertArrayEquals(fromRoots(1, -3, 2), Arrays.copyOf(work, 3), 1e-12);
+    }
+
+    @Test
+    void deflationByAQuadraticFactor() {
+        // (x² - 2x + 5)(x - 3)(x + 1), the quadratic factor has the roots 1 ± 2i
+        double[] coeffs = {-15, -4, 6, -4, 1};
+        double[] out = new double[3];
+        assertEquals(2, Deflation.divideQuadratic(coeffs, 4, -2, 5, out));
+        assertArrayEquals(fromRoots(1, 3, -1), out, 1e-12);
+
+        double[] small = {2, 1.25, 3.75, -1, 1};    // (x² + 0.5x + 0.5)(x² - 1.5x + 4)
+        Deflation.divideQuadraticForward(small, 4, 0.5, 0.5, out);
+        assertArrayEquals(new double[] {4, -1.5, 1}, out, 1e-12);
+    }
+
+    @Test
+    void deflationByLargeRootsKeepsTheSmallOnesAccurate() {
+        // roots far apart in size: deflating by the large ones from the constant keeps the small ones accurate
+        double[] roots = {0.001, 0.1, 10, 1000, 100000};
+        double[] work = fromRoots(1, roots);
+        int degree = Deflation.divide(work, 5, new double[] {100000, 1000, 10}, 3, work);
+        double[] rest = sorted(new AberthEhrlichSolver().findRealRoots(work, degree));
+        assertEquals(0.001, rest[0], 1e-12);
+        assertEquals(0.1, rest[1], 1e-12);
+    }
+
+}
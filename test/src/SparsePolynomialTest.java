@@ -0,0 +1,98 @@
+package src;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class SparsePolynomialTest {
+
+    @Test
+    void termsAreSortedAddedUpAndZerosLeftOut() {
+        SparsePolynomial f = new SparsePolynomial(new int[] {3, 0, 3, 7, 1}, new double[] {2, -1, 1, 0, 4});
+
+        assertEquals(3, f.getTermCount());
+        assertEquals(3, f.getDegree());
+        assertEquals(0, f.getExponent(0));
+        assertEquals(3, f.getCoefficient(3));
+        assertEquals(0, f.getCoefficient(7));
+        assertEquals("3x^3 + 4x - 1", f.toString());
+    }
+
+    @Test
+    void parseReadsTheFormatOfToString() {
+        assertEquals("x^1000000 - 3x + 1", SparsePolynomial.parse("x^1000000 - 3x + 1").toString());
+        assertEquals("2x^3 - x + 5", SparsePolynomial.parse("5 - x + 2*x^3").toString());
+        assertEquals(-2.5, SparsePolynomial.parse("-2.5x^40 + 1").getCoefficient(40));
+
+        assertThrows(NumberFormatException.class, () -> SparsePolynomial.parse(""));
+        assertThrows(NumberFormatException.class, () -> SparsePolynomial.parse("x^2 x"));
+        assertThrows(IllegalArgumentException.class, () -> new SparsePolynomial(new int[] {-1}, new double[] {1}));
+    }
+
+    @Test
+    void sameValuesAsTheDenseFunction() {
+        Function dense = Function.parse("3 0 0 -2 0 1 -7");
+        SparsePolynomial sparse = SparsePolynomial.of(dense);
+
+        assertEquals(4, sparse.getTermCount());
+        for (double x = -3; x <= 3; x += 0.125)
+            assertEquals(dense.calcValue(x), sparse.calcValue(x), 1e-9 * Math.max(1, Math.abs(dense.calcValue(x))));
+        assertEquals(dense.toString(), sparse.toString());
+        assertEquals(dense.toString(), sparse.toFunction().toString());
+    }
+
+    @Test
+    void powerBySquaring() {
+        assertEquals(1, SparsePolynomial.power(5, 0));
+        assertEquals(Math.pow(1.0001, 13), SparsePolynomial.power(1.0001, 13), 1e-15);
+        assertEquals(1, SparsePolynomial.power(-1, 1_000_000));
+        assertEquals(-1, SparsePolynomial.power(-1, 999_999));
+    }
+
+    @Test
+    void highDegreeValuesAreExact() {
+        SparsePolynomial f = SparsePolynomial.parse("x^1000000 - 3x + 1");
+        assertEquals(-1, f.calcValue(1));
+        assertEquals(5, f.calcValue(-1));
+        assertEquals(1, f.calcValue(0));
+    }
+
+    @Test
+    void derivativeAndDivision() {
+        assertEquals("4x^3 + 2", SparsePolynomial.parse("x^4 + 2x").calcDerivative().toString());
+        assertEquals("1000000x^999999 - 3", SparsePolynomial.parse("x^1000000 - 3x + 1").calcDerivative().toString());
+
+        // (x³ - 6x² + 11x - 6) / (x - 1) = x² - 5x + 6, and dividing by x only lowers the exponents
+        assertEquals("x^2 - 5x + 6", SparsePolynomial.parse("x^3 - 6x^2 + 11x - 6").polynomialDivision(1).toString());
+        assertEquals("x^99 + 2", SparsePolynomial.parse("x^100 + 2x").polynomialDivision(0).toString());
+    }
+
+    @Test
+    void findRootsOfHighDegrees() {
+        assertArrayEquals(new double[] {-1, 1}, SparsePolynomial.parse("x^1000000 - 1").findRoots(), 1e-12);
+        assertArrayEquals(new double[] {1}, SparsePolynomial.parse("x^999999 - 1").findRoots(), 1e-12);
+        assertArrayEquals(new double[0], SparsePolynomial.parse("x^1000000 + 1").findRoots());
+
+        // the positive root of x^1000 - 2 is 2^(1/1000)
+        double[] roots = SparsePolynomial.parse("x^1000 - 2").findRoots();
+        assertArrayEquals(new double[] {-Math.pow(2, 1e-3), Math.pow(2, 1e-3)}, roots, 1e-12);
+    }
+
+    @Test
+    void findRootsIncludesZeroOnce() {
+        assertArrayEquals(new double[] {-1, 0, 1}, SparsePolynomial.parse("x^3 - x").findRoots(), 1e-12);
+        assertArrayEquals(new double[] {-2, 0, 2}, SparsePolynomial.parse("x^5 - 4x^3").findRoots(), 1e-12);
+    }
+
+    @Test
+    void findRootsLikeTheDenseFunction() {
+        // (x + 3)(x + 0.5)(x - 1)(x - 2)(x - 4), every coefficient is a term
+        Function dense = new Function(RootFindingTest.fromRoots(1, -3, -0.5, 1, 2, 4));
+        double[] roots = SparsePolynomial.of(dense).findRoots();
+        assertArrayEquals(new double[] {-3, -0.5, 1, 2, 4}, roots, 1e-9);
+    }
+
+}
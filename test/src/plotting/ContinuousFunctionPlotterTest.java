@@ -0,0 +1,42 @@
+package src.plotting;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class ContinuousFunctionPlotterTest {
+
+    private static final int WIDTH = 240, HEIGHT = 150;
+
+    // Whether anything is drawn in the chart between two values of Y, in the columns between two values of X
+    private static boolean drawnBetween(Graph graph, BufferedImage image, double minX, double maxX, double minY,
+                                        double maxY) {
+        for (int px = graph.getPlotX(minX); px <= graph.getPlotX(maxX); px++)
+            for (int py = graph.getPlotY(maxY); py <= graph.getPlotY(minY); py++)
+                if ((image.getRGB(px, py) & 0xffffff) != 0xffffff) return true;
+        return false;
+    }
+
+    @Test
+    void aNarrowPeakBetweenTheSamplesIsDrawn() {
+        // 50 pixels a unit, so the coarse samples are 0.16 apart: 0.32 and 0.48 are both far below the chart, and the
+        // middle one at 0.4 is just below it, on the side of the peak at 0.42 which reaches up to 0.5
+        Graph graph = new Graph(new PlotSettings(-2, 2, -1, 1));
+        graph.functions.add(new ContinuousFunctionPlotter() {
+            public String getName() {
+                return "peak";
+            }
+
+            public double getY(double x) {
+                double d = (x - 0.42) / 0.025;
+                return -3 + 3.5 * Math.exp(-d * d);
+            }
+        });
+
+        BufferedImage image = graph.getImage(WIDTH, HEIGHT);
+        assertTrue(drawnBetween(graph, image, 0.36, 0.46, -0.9, -0.1));
+    }
+}
@@ -0,0 +1,45 @@
+package src.plotting;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class GraphTest {
+
+    private static Graph parabola() {
+        Graph graph = new Graph(new PlotSettings(-2, 2, -1, 1));
+        graph.functions.add(new ContinuousFunctionPlotter() {
+            public String getName() {
+                return "x^2 - 1";
+            }
+
+            public double getY(double x) {
+                return x * x - 1;
+            }
+        });
+        return graph;
+    }
+
+    @AfterEach
+    void clearInterrupt() {
+        Thread.interrupted();
+    }
+
+    @Test
+    void drawReportsAFinishedFrame() {
+        BufferedImage image = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+        assertTrue(parabola().draw(image.getGraphics(), 200, 150));
+    }
+
+    @Test
+    void drawReportsACancelledFrame() {
+        BufferedImage image = new BufferedImage(200, 150, BufferedImage.TYPE_INT_RGB);
+        Thread.currentThread().interrupt();
+        assertFalse(parabola().draw(image.getGraphics(), 200, 150));
+    }
+}
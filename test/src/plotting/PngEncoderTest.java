@@ -0,0 +1,81 @@
+package src.plotting;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class PngEncoderTest {
+
+    private static BufferedImage decode(ByteArrayOutputStream png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+        assertNotNull(image, "not a PNG ImageIO can read");
+        return image;
+    }
+
+    @Test
+    void imageIoReadsBackTheSamePixels() throws IOException {
+        // Random pixels hardly compress, so the data is split over several IDAT chunks
+        int width = 300, height = 250;
+        int[] pixels = new int[width * height];
+        Random random = new Random(42);
+        for (int i = 0; i < pixels.length; i++) pixels[i] = random.nextInt() & 0xFFFFFF;
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        try (PngEncoder encoder = new PngEncoder(png, width, height, Deflater.BEST_SPEED)) {
+            // In uneven bands, as ImageExporter does
+            encoder.writeRows(pixels, 0, width, 100);
+            encoder.writeRows(pixels, 100 * width, width, 150);
+            encoder.finish();
+        }
+
+        BufferedImage image = decode(png);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++)
+            for (int x = 0; x < width; x++)
+                assertEquals(pixels[y * width + x], image.getRGB(x, y) & 0xFFFFFF, "pixel " + x + ", " + y);
+    }
+
+    @Test
+    void exportedGraphIsAReadablePng() throws IOException {
+        Graph graph = new Graph(new PlotSettings(-2, 2, -1, 1));
+        graph.functions.add(new ContinuousFunctionPlotter() {
+            public String getName() {
+                return "x^3 - x";
+            }
+
+            public double getY(double x) {
+                return x * x * x - x;
+            }
+        });
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageExporter.writePng(graph, 320, 200, png);
+        BufferedImage image = decode(png);
+
+        assertEquals(320, image.getWidth());
+        assertEquals(200, image.getHeight());
+    }
+
+    @Test
+    void closeAfterAFailedImage() throws IOException {
+        PngEncoder encoder = new PngEncoder(new ByteArrayOutputStream(), 10, 10);
+        encoder.writeRows(new int[100], 0, 10, 5);
+        assertThrows(IllegalStateException.class, encoder::finish);
+        assertThrows(IllegalStateException.class, () -> encoder.writeRows(new int[100], 0, 10, 10));
+        encoder.close();
+        encoder.close();
+    }
+
+}
@@ -0,0 +1,124 @@
+package src.plotting;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class TilePyramidTest {
+
+    private static final int WIDTH = 400, HEIGHT = 300;
+
+    private static Graph line() {
+        Graph graph = new Graph(new PlotSettings(-2, 2, -1, 1));
+        graph.functions.add(new ContinuousFunctionPlotter() {
+            public String getName() {
+                return "x / 2";
+            }
+
+            public double getY(double x) {
+                return x / 2;
+            }
+        });
+        return graph;
+    }
+
+    // An executor which runs the tiles only when asked to
+    private static final class QueuedExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) tasks.poll().run();
+        }
+    }
+
+    private static int paint(TilePyramid pyramid, Graph graph, Runnable onTileReady) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        return pyramid.paint(image.getGraphics(), graph.plotSettings, WIDTH, HEIGHT, onTileReady);
+    }
+
+    @Test
+    void missingTilesAreDrawnAndThenPaintedFromTheCache() {
+        Graph graph = line();
+        TileCache cache = new TileCache(64);
+        QueuedExecutor executor = new QueuedExecutor();
+        TilePyramid pyramid = new TilePyramid(graph, WIDTH, HEIGHT, cache, executor);
+        AtomicInteger ready = new AtomicInteger();
+
+        int missing = paint(pyramid, graph, ready::incrementAndGet);
+        assertTrue(missing > 0);
+        executor.runAll();
+
+        assertEquals(missing, ready.get());
+        assertEquals(missing, cache.size());
+        assertEquals(0, paint(pyramid, graph, null));
+    }
+
+    @Test
+    void pyramidsSharingACacheDoNotUseEachOthersTiles() {
+        Graph graph = line();
+        TileCache cache = new TileCache(64);
+        QueuedExecutor executor = new QueuedExecutor();
+        TilePyramid first = new TilePyramid(graph, WIDTH, HEIGHT, cache, executor);
+        paint(first, graph, null);
+        executor.runAll();
+
+        // The same view in a new pyramid (the plotters may have changed) draws all its tiles again
+        TilePyramid second = new TilePyramid(graph, WIDTH, HEIGHT, cache, executor);
+        int tiles = cache.size();
+        assertNotEquals(first.getGeneration(), second.getGeneration());
+        assertEquals(0, paint(first, graph, null));
+        assertEquals(tiles, paint(second, graph, null));
+    }
+
+    @Test
+    void cancelledTilesAreNotDrawn() {
+        Graph graph = line();
+        TileCache cache = new TileCache(64);
+        QueuedExecutor executor = new QueuedExecutor();
+        TilePyramid pyramid = new TilePyramid(graph, WIDTH, HEIGHT, cache, executor);
+        AtomicInteger ready = new AtomicInteger();
+
+        assertTrue(paint(pyramid, graph, ready::incrementAndGet) > 0);
+        pyramid.cancel();
+        executor.runAll();
+
+        assertEquals(0, ready.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, pyramid.getPendingCount());
+    }
+
+    @Test
+    void tilesFinishedAfterTheCancelAreThrownAway() {
+        Graph graph = line();
+        TileCache cache = new TileCache(64);
+        QueuedExecutor executor = new QueuedExecutor();
+        TilePyramid pyramid = new TilePyramid(graph, WIDTH, HEIGHT, cache, executor) {
+            protected BufferedImage drawTile(TileCache.Key key) {
+                BufferedImage tile = super.drawTile(key);
+                cancel();   // the pyramid is replaced while its first tile is being drawn
+                return tile;
+            }
+        };
+        AtomicInteger ready = new AtomicInteger();
+
+        paint(pyramid, graph, ready::incrementAndGet);
+        executor.runAll();
+
+        assertEquals(0, ready.get());
+        assertEquals(0, cache.size());
+    }
+
+}
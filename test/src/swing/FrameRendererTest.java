@@ -0,0 +1,82 @@
+package src.swing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import src.plotting.PlotSettings;
+import src.plotting.Plotter;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+
+class FrameRendererTest {
+
+    private static final int WIDTH = 800, HEIGHT = 560;
+
+    private FrameRenderer renderer;
+    private final BufferedImage previous = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+    @BeforeEach
+    void start() {
+        renderer = new FrameRenderer(new JPanel());
+    }
+
+    @AfterEach
+    void stop() {
+        renderer.dispose();
+    }
+
+    private static FrameRenderer.Request request(PlotSettings settings) {
+        return new FrameRenderer.Request(settings.copy(), new ArrayList<Plotter>(), WIDTH, HEIGHT, Color.WHITE, true);
+    }
+
+    // Drags the view like InteractiveGraphPanel does, moving both ends by a whole number of pixels
+    private static void drag(PlotSettings p, int pixelsX, int pixelsY, int chartWidth, int chartHeight) {
+        double movementX = pixelsX * (p.getRangeX() / chartWidth);
+        double movementY = pixelsY * (p.getRangeY() / chartHeight);
+        p.setMinX(p.getMinX() - movementX);
+        p.setMaxX(p.getMaxX() - movementX);
+        p.setMinY(p.getMinY() + movementY);
+        p.setMaxY(p.getMaxY() + movementY);
+    }
+
+    @Test
+    void dragsAreReusedDespiteRounding() {
+        PlotSettings p = new PlotSettings(1234.567, 1238.891, -0.3, 0.7);
+        int chartWidth = WIDTH - (p.getMarginLeft() + p.getMarginRight());
+        int chartHeight = HEIGHT - (p.getMarginTop() + p.getMarginBottom());
+
+        for (int i = 0; i < 200; i++) {
+            FrameRenderer.Request old = request(p);
+            drag(p, 3 + i % 5, -2 + i % 3, chartWidth, chartHeight);
+            Point offset = renderer.panOffset(request(p), previous, old);
+            assertNotNull(offset, "drag " + i);
+            assertEquals(3 + i % 5, offset.x);
+            assertEquals(-2 + i % 3, offset.y);
+        }
+    }
+
+    @Test
+    void zoomIsNotAPan() {
+        PlotSettings p = new PlotSettings(-2, 2, -1, 1);
+        FrameRenderer.Request old = request(p);
+        p.setMaxX(2.01);
+        assertNull(renderer.panOffset(request(p), previous, old));
+    }
+
+    @Test
+    void partPixelMoveIsNotAPan() {
+        PlotSettings p = new PlotSettings(-2, 2, -1, 1);
+        FrameRenderer.Request old = request(p);
+        p.setMinX(p.getMinX() + 0.001);
+        p.setMaxX(p.getMaxX() + 0.001);
+        assertNull(renderer.panOffset(request(p), previous, old));
+    }
+}